@@ -0,0 +1,110 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.AIDifficulty;
+import com.gomoku.game.BenchmarkPositions;
+import com.gomoku.game.Board;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI引擎整步计算的基准测试
+ *
+ * 分数是每秒计算的步数，附带的 nodes 计数器是困难难度每秒搜索的节点数。
+ * 为了让每次测量的工作量固定，困难难度按固定深度搜索、专家难度按固定迭代次数搜索，
+ * 时间上限放宽到不会触发；开局库、应手缓存、后台思考和并行搜索全部关闭，
+ * 每步之前清空置换表，避免局面库循环使用时直接命中上一轮的结果。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class AIEngineBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD", "EXPERT"})
+    public AIDifficulty difficulty;
+
+    /**
+     * 困难难度的固定搜索深度
+     */
+    @Param("6")
+    public int hardDepth;
+
+    /**
+     * 专家难度的固定迭代次数
+     */
+    @Param("2000")
+    public long expertIterations;
+
+    private AIEngine engine;
+    private Board[] boards;
+    private int next;
+
+    @Setup
+    public void setup() {
+        AIProperties properties = new AIProperties();
+        properties.setHard(new AIProperties.SearchBudget(600_000, 0, hardDepth));
+        properties.getMcts().setTimeLimitMs(600_000);
+        properties.getMcts().setIterationLimit(expertIterations);
+        properties.getBook().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        properties.getPonder().setEnabled(false);
+        properties.getParallel().setEnabled(false);
+        engine = new AIEngine(properties, new OpeningBook(properties), new PositionCache(properties));
+        boards = BenchmarkPositions.boards();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearSearchState() {
+        if (difficulty == AIDifficulty.HARD || difficulty == AIDifficulty.EXPERT) {
+            engine.clearSearchState();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.shutdown();
+    }
+
+    @Benchmark
+    public AIEngine.Position calculateNextMove(NodeCounter counter) {
+        Board board = boards[next];
+        next = next + 1 == boards.length ? 0 : next + 1;
+        long before = engine.getSearchedNodes();
+        AIEngine.Position move = engine.calculateNextMove(board, difficulty,
+                BenchmarkPositions.sideToMove(board.getMoveCount()));
+        counter.nodes += engine.getSearchedNodes() - before;
+        return move;
+    }
+
+    /**
+     * 搜索节点计数，JMH按测量时间换算为每秒节点数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class NodeCounter {
+
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import com.gomoku.game.BenchmarkPositions;
+import com.gomoku.game.Board;
+import com.gomoku.enums.PieceColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 着法生成与局面评估的基准测试
+ *
+ * 分叉的JVM加载了 jdk.incubator.vector，使用启动时自动选择的棋形评估内核；
+ * 加上 -jvmArgsAppend -Dgomoku.ai.vector=false 可以测量标量实现。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class EvaluationBenchmark {
+
+    private Board[] boards;
+    private SearchContext[] contexts;
+
+    // 每个局面的候选点及其数量
+    private int[][] candidates;
+    private int[] candidateCounts;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        boards = BenchmarkPositions.boards();
+        contexts = new SearchContext[boards.length];
+        candidates = new int[boards.length][Board.CELL_COUNT];
+        candidateCounts = new int[boards.length];
+        AIProperties.SearchBudget budget = new AIProperties.SearchBudget(600_000, 0, 1);
+        for (int i = 0; i < boards.length; i++) {
+            contexts[i] = new SearchContext(boards[i], budget);
+            int count = 0;
+            for (int cell = boards[i].nextCandidate(0); cell >= 0; cell = boards[i].nextCandidate(cell + 1)) {
+                candidates[i][count++] = cell;
+            }
+            candidateCounts[i] = count;
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == boards.length ? 0 : index + 1;
+        return index;
+    }
+
+    private static int sideToMove(Board board) {
+        return board.getMoveCount() % 2 == 0 ? Board.BLACK : Board.WHITE;
+    }
+
+    /**
+     * 生成并排序一个内部节点的着法（威胁着法 + 安静着法截断）
+     */
+    @Benchmark
+    public int generateMoves() {
+        int index = nextIndex();
+        return MoveGenerator.generate(contexts[index], sideToMove(boards[index]), 1, -1, MoveGenerator.QUIET_LIMIT);
+    }
+
+    /**
+     * 落子并撤销，增量评估器各重算四条线
+     */
+    @Benchmark
+    public int incrementalUpdate() {
+        int index = nextIndex();
+        SearchContext context = contexts[index];
+        int cell = candidates[index][0];
+        PieceColor color = sideToMove(boards[index]) == Board.BLACK ? PieceColor.BLACK : PieceColor.WHITE;
+        context.makeMove(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, color);
+        int score = context.getEvaluator().evaluate(Board.BLACK);
+        context.undoMove();
+        return score;
+    }
+
+    /**
+     * 从零开始评估整个局面（每次搜索开始时执行一次）
+     */
+    @Benchmark
+    public int fullEvaluation() {
+        Board board = boards[nextIndex()];
+        return new IncrementalEvaluator(board).evaluate(sideToMove(board));
+    }
+}
@@ -0,0 +1,78 @@
+package com.gomoku.ai;
+
+import com.gomoku.game.BenchmarkPositions;
+import com.gomoku.game.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 棋形评估内核的基准测试：对比标量实现和向量实现
+ *
+ * 向量实现需要 jdk.incubator.vector，分叉的JVM已经加上了该模块。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ShapeKernelBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    private ShapeKernel shapeKernel;
+    private Board[] boards;
+
+    // 每个局面的候选点及其数量
+    private int[][] candidates;
+    private int[] candidateCounts;
+    private final int[] shapes = new int[Board.CELL_COUNT];
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        shapeKernel = "vector".equals(kernel) ? new VectorShapeKernel() : ScalarShapeKernel.INSTANCE;
+        boards = BenchmarkPositions.boards();
+        candidates = new int[boards.length][Board.CELL_COUNT];
+        candidateCounts = new int[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            int count = 0;
+            for (int cell = boards[i].nextCandidate(0); cell >= 0; cell = boards[i].nextCandidate(cell + 1)) {
+                candidates[i][count++] = cell;
+            }
+            candidateCounts[i] = count;
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == boards.length ? 0 : index + 1;
+        return index;
+    }
+
+    /**
+     * 双方在所有候选点上的棋形（着法生成的最内层循环）
+     */
+    @Benchmark
+    public int shapes() {
+        int index = nextIndex();
+        Board board = boards[index];
+        shapeKernel.shapes(board, Board.BLACK, candidates[index], candidateCounts[index], shapes);
+        int sum = shapes[0];
+        shapeKernel.shapes(board, Board.WHITE, candidates[index], candidateCounts[index], shapes);
+        return sum + shapes[0];
+    }
+}
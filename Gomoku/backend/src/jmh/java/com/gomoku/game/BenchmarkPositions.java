@@ -0,0 +1,81 @@
+package com.gomoku.game;
+
+import com.gomoku.enums.PieceColor;
+
+/**
+ * 基准测试用的固定局面库
+ *
+ * 16个中盘局面（12~40手），由中等难度对弈并随机掺入少量简单难度的落子生成，
+ * 开局前三手随机放在中央区域，因此局面之间没有公共前缀。
+ * 每个局面都是进行中的对局，没有一方已经连成五子。
+ */
+public final class BenchmarkPositions {
+
+    // 每个局面的落子序列（格子编号 x * 15 + y，黑先交替）
+    private static final int[][] MOVES = {
+            {81, 95, 84, 113, 65, 94, 49, 33, 97, 139, 145, 93},
+            {112, 128, 142, 129, 127, 97, 157, 172, 141, 221, 143, 140, 144, 145, 113, 99},
+            {128, 98, 126, 82, 127, 125, 129, 130, 114, 66, 105, 50, 34, 51, 213, 184, 142, 100, 156, 170},
+            {125, 82, 114, 66, 158, 50, 34, 98, 19, 51, 23, 79, 4, 49, 48, 212, 52, 140, 20, 6, 36, 68, 62, 76},
+            {143, 112, 141, 96, 142, 140, 182, 144, 128, 126, 98, 154, 168, 113, 114, 100, 60, 156, 82, 66,
+                    130, 146, 129, 160, 127, 131, 157, 115},
+            {140, 144, 110, 128, 125, 95, 155, 170, 124, 112, 96, 26, 103, 160, 176, 82, 138, 152, 139, 137,
+                    141, 142, 156, 108, 172, 188, 154, 109, 153, 157, 111, 97},
+            {141, 125, 140, 111, 142, 139, 143, 144, 97, 153, 167, 52, 156, 171, 128, 114, 170, 184, 113, 83,
+                    98, 158, 127, 99, 159, 129, 84, 112, 155, 169, 175, 191, 185, 200, 154, 157},
+            {144, 125, 99, 109, 83, 93, 77, 141, 157, 103, 67, 51, 171, 115, 143, 129, 185, 199, 145, 142,
+                    146, 147, 160, 140, 139, 110, 95, 155, 170, 126, 203, 75, 94, 158, 174, 132, 188, 202,
+                    172, 173},
+            {97, 128, 127, 160, 112, 82, 142, 157, 111, 144, 176, 143},
+            {112, 95, 84, 47, 72, 31, 53, 15, 63, 16, 98, 70, 126, 140, 68, 83},
+            {97, 110, 84, 94, 83, 78, 62, 126, 142, 79, 69, 55, 111, 125, 82, 81, 85, 86, 41, 80},
+            {114, 80, 95, 64, 98, 48, 32, 96, 112, 49, 113, 111, 115, 116, 128, 83, 143, 158, 68, 34, 19, 79,
+                    94, 81},
+            {97, 84, 99, 185, 98, 96, 100, 101, 113, 85, 83, 68, 128, 143, 114, 86, 142, 156, 87, 69, 53, 117,
+                    133, 70, 67, 71, 72, 56},
+            {95, 110, 114, 124, 79, 138, 96, 207, 152, 123, 202, 108, 93, 153, 168, 94, 111, 63, 127, 143, 81,
+                    66, 126, 141, 80, 78, 69, 62, 46, 82, 65, 50},
+            {144, 97, 83, 81, 68, 65, 49, 113, 129, 66, 53, 38, 98, 207, 114, 99, 159, 174, 130, 82, 146, 162,
+                    145, 143, 147, 148, 131, 117, 224, 128, 132, 133, 173, 187, 158, 116},
+            {96, 140, 99, 124, 80, 108, 92, 156, 172, 109, 64, 48, 112, 128, 78, 50, 106, 120, 79, 77, 25, 81,
+                    49, 162, 100, 34, 94, 62, 20, 76, 90, 66, 136, 143, 18, 82, 98, 97, 101, 151}
+    };
+
+    private BenchmarkPositions() {
+    }
+
+    public static int size() {
+        return MOVES.length;
+    }
+
+    /**
+     * 按落子序列重建第index个局面
+     */
+    public static Board board(int index) {
+        Board board = new Board();
+        int[] moves = MOVES[index];
+        for (int ply = 0; ply < moves.length; ply++) {
+            int cell = moves[ply];
+            board.placeStone(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, sideToMove(ply));
+        }
+        return board;
+    }
+
+    /**
+     * 重建全部局面
+     */
+    public static Board[] boards() {
+        Board[] boards = new Board[MOVES.length];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = board(i);
+        }
+        return boards;
+    }
+
+    /**
+     * 已下了moveCount手时轮到的一方
+     */
+    public static PieceColor sideToMove(int moveCount) {
+        return moveCount % 2 == 0 ? PieceColor.BLACK : PieceColor.WHITE;
+    }
+}
@@ -0,0 +1,98 @@
+package com.gomoku.game;
+
+import com.gomoku.enums.PieceColor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 棋盘与对局规则的基准测试
+ *
+ * 每次调用轮换使用局面库中的下一个局面，结果是整个局面库上的平均值。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private final GameLogic gameLogic = new GameLogic();
+
+    private Board[] boards;
+
+    // 每个局面上用于落子测试的空点（第一个候选点）
+    private int[] emptyCells;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        boards = BenchmarkPositions.boards();
+        emptyCells = new int[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            emptyCells[i] = boards[i].nextCandidate(0);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == boards.length ? 0 : index + 1;
+        return index;
+    }
+
+    /**
+     * 对最后一手做胜负判定
+     */
+    @Benchmark
+    public boolean checkWin() {
+        Board board = boards[nextIndex()];
+        int cell = board.getLastMove();
+        return board.checkWin(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE);
+    }
+
+    /**
+     * 复制棋盘（每次AI搜索和后台思考都会复制一次）
+     */
+    @Benchmark
+    public Board copy() {
+        return boards[nextIndex()].copy();
+    }
+
+    /**
+     * 校验并执行一次落子，随后撤销以保持局面不变
+     */
+    @Benchmark
+    public GameLogic.GameResult executeMove() {
+        int index = nextIndex();
+        Board board = boards[index];
+        int cell = emptyCells[index];
+        PieceColor color = BenchmarkPositions.sideToMove(board.getMoveCount());
+        GameLogic.GameResult result = gameLogic.executeMove(board, cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, color);
+        board.undoStone();
+        return result;
+    }
+
+    /**
+     * 遍历候选点（周围两格内有棋子的空点）
+     */
+    @Benchmark
+    public int candidates() {
+        Board board = boards[nextIndex()];
+        int sum = 0;
+        for (int cell = board.nextCandidate(0); cell >= 0; cell = board.nextCandidate(cell + 1)) {
+            sum += cell;
+        }
+        return sum;
+    }
+}
@@ -2,8 +2,10 @@ package com.gomoku;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class GomokuApplication {
     public static void main(String[] args) {
         SpringApplication.run(GomokuApplication.class, args);
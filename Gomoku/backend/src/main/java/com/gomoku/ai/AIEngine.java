@@ -1,37 +1,173 @@
 package com.gomoku.ai;
 
+import com.gomoku.config.AIProperties;
 import com.gomoku.enums.AIDifficulty;
 import com.gomoku.enums.PieceColor;
 import com.gomoku.game.Board;
+import com.gomoku.game.RenjuRules;
 import lombok.AllArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
- * AI引擎 - 支持三种难度
+ * AI引擎 - 支持四种难度（简单、中等、困难、专家）
  */
 @Component
+@Slf4j
 public class AIEngine {
     
-    private final Random random = new Random();
+    private final AIProperties aiProperties;
     
-    // 记录开始时间
-    private long searchStartTime;
-    private static final long MAX_SEARCH_TIME = 3000; // 最大搜索时间3秒
+    private final OpeningBook openingBook;
+    
+    private final PositionCache positionCache;
+    
+    // Lazy SMP 辅助线程池，未启用并行搜索时为null
+    private final SearchThreadPool helperPool;
+    
+    // 专家难度使用的蒙特卡洛树搜索，保存各对局跨回合复用的子树
+    private final MonteCarloTreeSearch monteCarloTreeSearch;
+    
+    // 后台思考线程池，未启用后台思考时为null
+    private final ThreadPoolExecutor ponderPool;
+    
+    // 各对局正在进行（或已停止、等待AI下一步取用）的后台思考，键为对局ID
+    private final Map<Long, PonderSession> ponderSessions = new ConcurrentHashMap<>();
+    
+    // 等待后台思考退出的最长时间
+    private static final long PONDER_STOP_TIMEOUT_MS = 200;
+    
+    private static final int INFINITY = 1_000_000_000;
+    private static final int WIN_SCORE = 10_000_000;
+    private static final int WIN_THRESHOLD = WIN_SCORE - 1000;
+    
+    // 渴望窗口：初始半宽，失败后按4倍放宽，超过上限改用全窗口
+    private static final int ASPIRATION_WINDOW = 500;
+    private static final int ASPIRATION_LIMIT = 32_000;
+    
+    // 随机落子抽中黑棋禁手点时的重抽次数
+    private static final int RANDOM_MOVE_ATTEMPTS = 8;
+    
+    // 累计搜索节点数（含辅助线程和后台思考），用于统计每秒节点数
+    private final LongAdder searchedNodes = new LongAdder();
+    
+    // 置换表：2^20个槽位（约16MB），按局面哈希在所有对局间共享
+    private final TranspositionTable transpositionTable = new TranspositionTable(20);
+    
+    public AIEngine(AIProperties aiProperties, OpeningBook openingBook, PositionCache positionCache) {
+        this.aiProperties = aiProperties;
+        this.openingBook = openingBook;
+        this.positionCache = positionCache;
+        this.helperPool = aiProperties.getParallel().isEnabled()
+                ? new SearchThreadPool(aiProperties.getParallel())
+                : null;
+        this.monteCarloTreeSearch = new MonteCarloTreeSearch(aiProperties.getMcts(), helperPool);
+        this.ponderPool = aiProperties.getPonder().isEnabled()
+                ? createPonderPool(aiProperties.getPonder().getThreads())
+                : null;
+    }
+    
+    /**
+     * 后台思考线程池：使用 SynchronousQueue，线程都在忙时直接放弃本次后台思考，不排队
+     */
+    private static ThreadPoolExecutor createPonderPool(int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ai-ponder-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (helperPool != null) {
+            helperPool.shutdown();
+        }
+        if (ponderPool != null) {
+            ponderSessions.values().forEach(PonderSession::stop);
+            ponderPool.shutdownNow();
+        }
+    }
+    
+    /**
+     * 困难难度主搜索累计搜索的节点数
+     */
+    public long getSearchedNodes() {
+        return searchedNodes.sum();
+    }
+    
+    /**
+     * 清空置换表和保留的蒙特卡洛子树，基准测试用来保证每次测量都从冷状态开始
+     */
+    void clearSearchState() {
+        transpositionTable.clear();
+        monteCarloTreeSearch.clear();
+    }
     
     /**
      * 计算AI的下一步落子位置
      */
     public Position calculateNextMove(Board board, AIDifficulty difficulty, PieceColor aiColor) {
-        return switch (difficulty) {
+        return calculateNextMove(board, difficulty, aiColor, null);
+    }
+    
+    /**
+     * 计算AI的下一步落子位置，gameId不为空时可以利用该对局在对方思考期间的后台思考结果和上一步保留的搜索树；
+     * 对局结束时要调用 {@link #endGame(Long)}
+     */
+    public Position calculateNextMove(Board board, AIDifficulty difficulty, PieceColor aiColor, Long gameId) {
+        // 无论是否猜中，后台思考都要在正式搜索开始前退出，避免和正式搜索抢占CPU
+        PonderSession session = gameId != null ? ponderSessions.remove(gameId) : null;
+        if (session != null && !session.stopAndAwait(PONDER_STOP_TIMEOUT_MS)) {
+            session = null;
+        }
+        
+        // 开局阶段优先查开局库，命中时不需要复制棋盘和搜索
+        int bookMove = openingBook.probe(board);
+        if (bookMove >= 0) {
+            return toPosition(bookMove);
+        }
+        
+        // 其他对局搜索过的相同（或对称）局面直接复用应手
+        int cachedMove = positionCache.probe(board, aiColor, difficulty);
+        if (cachedMove >= 0) {
+            return toPosition(cachedMove);
+        }
+        
+        // 简单、中等难度只读取棋盘（威胁索引和棋形评估），不需要复制；
+        // 其他难度整个搜索只复制一次棋盘，之后在副本上落子/撤销，避免修改对局中的棋盘
+        Position move = switch (difficulty) {
             case EASY -> calculateEasyMove(board, aiColor);
             case MEDIUM -> calculateMediumMove(board, aiColor);
-            case HARD -> calculateHardMove(board, aiColor);
+            case HARD -> calculateHardMove(board.copy(), aiColor, session);
+            case EXPERT -> calculateExpertMove(board.copy(), aiColor, gameId);
         };
+        if (move == null) {
+            // 搜索没有给出结果（时间用完前一层都没搜完等），随机落子兜底；
+            // 这样的应手不能写入跨对局缓存，否则其他对局的相同局面都会拿到随机的一步
+            return getRandomMove(board, aiColor);
+        }
+        positionCache.store(board, aiColor, difficulty, Board.index(move.x, move.y));
+        return move;
     }
     
     /**
@@ -41,22 +177,22 @@ public class AIEngine {
         PieceColor opponentColor = aiColor == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
         
         // 60%概率进行防守检测
-        if (random.nextDouble() < 0.6) {
+        if (ThreadLocalRandom.current().nextDouble() < 0.6) {
             // 检查是否有必胜点
             Position winPos = findWinningMove(board, aiColor);
             if (winPos != null) {
                 return winPos;
             }
             
-            // 检查是否需要防守
-            Position blockPos = findWinningMove(board, opponentColor);
+            // 检查是否需要防守（黑棋不堵禁手点，堵了立即判负）
+            Position blockPos = findWinningMove(board, opponentColor, aiColor);
             if (blockPos != null) {
                 return blockPos;
             }
         }
         
         // 否则随机落子
-        return getRandomMove(board);
+        return getRandomMove(board, aiColor);
     }
     
     /**
@@ -71,20 +207,20 @@ public class AIEngine {
             return winPos;
         }
         
-        // 2. 检查对方是否有必胜点（防守）
-        Position blockPos = findWinningMove(board, opponentColor);
+        // 2. 检查对方是否有必胜点（防守），黑棋不堵禁手点
+        Position blockPos = findWinningMove(board, opponentColor, aiColor);
         if (blockPos != null) {
             return blockPos;
         }
         
-        // 3. 检查是否能形成冲四（进攻）
-        Position attackPos = findFourMove(board, aiColor);
+        // 3. 检查是否能形成冲四（进攻），黑棋跳过禁手点
+        Position attackPos = findFourMove(board, aiColor, aiColor);
         if (attackPos != null) {
             return attackPos;
         }
         
-        // 4. 检查是否需要阻止对方形成冲四（防守）
-        Position defendPos = findFourMove(board, opponentColor);
+        // 4. 检查是否需要阻止对方形成冲四（防守），黑棋跳过禁手点
+        Position defendPos = findFourMove(board, opponentColor, aiColor);
         if (defendPos != null) {
             return defendPos;
         }
@@ -94,362 +230,570 @@ public class AIEngine {
     }
     
     /**
-     * 困难难度：MinMax算法 + Alpha-Beta剪枝
+     * 困难难度：威胁空间搜索 + 迭代加深 + Negamax算法 + Alpha-Beta剪枝 + 置换表；
+     * 一层都没有搜完时返回null
+     *
+     * @param session 该对局已停止的后台思考，没有时为null
      */
-    private Position calculateHardMove(Board board, PieceColor aiColor) {
-        // 设置搜索开始时间
-        searchStartTime = System.currentTimeMillis();
+    private Position calculateHardMove(Board board, PieceColor aiColor, PonderSession session) {
+        AIProperties.SearchBudget budget = aiProperties.getHard();
+        if (session != null && session.getHash() == board.getHash()) {
+            // 猜中了对方的应手：置换表已经预热，后台思考的时间计入本步预算
+            Position ponderMove = session.getMove();
+            long timeLimit = budget.getTimeLimitMs() * 1_000_000L;
+            if (ponderMove != null && board.isEmptyCell(Board.index(ponderMove.x, ponderMove.y))
+                    && (session.isCompleted() || session.getElapsed() > timeLimit / 2)) {
+                // 与迭代加深的提前结束规则一致：已用时间超过预算一半时不再加深
+                log.debug("后台思考命中，直接采用: elapsedMs={}", session.getElapsed() / 1_000_000);
+                return ponderMove;
+            }
+            long remainingMs = Math.max(budget.getTimeLimitMs() - session.getElapsed() / 1_000_000,
+                    budget.getTimeLimitMs() / 4);
+            budget = new AIProperties.SearchBudget(remainingMs, budget.getNodeLimit(), budget.getMaxDepth());
+            log.debug("后台思考命中，继续搜索: elapsedMs={}, remainingMs={}",
+                    session.getElapsed() / 1_000_000, remainingMs);
+        }
         
-        int depth = 2; // 降低搜索深度以提高响应速度，同时优化评估函数
-        Position bestMove = null;
-        int bestScore = Integer.MIN_VALUE;
+        ThreatVerdict verdict = solveThreats(board, aiColor);
+        if (verdict.move() != null) {
+            return verdict.move();
+        }
+        List<Position> rootMoves = verdict.rootMoves();
         
-        List<Position> candidates = getOptimizedCandidatePositions(board);
+        int helpers = helperPool != null ? helperPool.acquire() : 0;
+        if (helpers == 0) {
+            Position bestMove = iterativeDeepening(new SearchContext(board, budget), aiColor, rootMoves);
+            return bestMove;
+        }
         
-        for (Position pos : candidates) {
-            // 检查是否超时
-            if (System.currentTimeMillis() - searchStartTime > MAX_SEARCH_TIME) {
-                break;
-            }
-            
-            Board tempBoard = board.copy();
-            tempBoard.placeStone(pos.x, pos.y, aiColor);
-            
-            int score = minimax(tempBoard, depth - 1, false, aiColor, Integer.MIN_VALUE, Integer.MAX_VALUE);
-            
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = pos;
+        // Lazy SMP：辅助线程在各自的棋盘副本上搜索同一根节点，通过共享置换表互相加速，
+        // 最终只采用主线程的结果
+        AtomicBoolean stopSignal = new AtomicBoolean();
+        List<Position> helperRootMoves = rootMoves;
+        try {
+            for (int i = 1; i <= helpers; i++) {
+                SearchContext helperContext = new SearchContext(board.copy(), budget, stopSignal, i);
+                if (!helperPool.trySubmit(() -> iterativeDeepening(helperContext, aiColor, helperRootMoves))) {
+                    break;
+                }
             }
+            Position bestMove = iterativeDeepening(new SearchContext(board, budget, stopSignal, 0), aiColor, rootMoves);
+            return bestMove;
+        } finally {
+            stopSignal.set(true);
+            helperPool.release();
         }
-        
-        return bestMove != null ? bestMove : getRandomMove(board);
     }
     
     /**
-     * MinMax算法实现
+     * 专家难度：威胁空间搜索 + 蒙特卡洛树搜索；搜索没有给出着法时返回null
      */
-    private int minimax(Board board, int depth, boolean isMaximizing, PieceColor aiColor, int alpha, int beta) {
-        // 检查是否超时
-        if (System.currentTimeMillis() - searchStartTime > MAX_SEARCH_TIME) {
-            return evaluateBoard(board, aiColor);
+    private Position calculateExpertMove(Board board, PieceColor aiColor, Long gameId) {
+        ThreatVerdict verdict = solveThreats(board, aiColor);
+        if (verdict.move() != null) {
+            return verdict.move();
         }
-        
-        if (depth == 0 || board.isFull()) {
-            return evaluateBoard(board, aiColor);
+        int cell = monteCarloTreeSearch.search(board, aiColor, verdict.rootMoves(), gameId);
+        return cell >= 0 ? toPosition(cell) : null;
+    }
+    
+    /**
+     * AI落子后开始后台思考：预测对方的应手，在应手后的局面上提前搜索AI的下一步。
+     * 只对困难难度生效；线程池忙时直接放弃
+     *
+     * @param board AI落子之后、轮到对方的局面
+     */
+    public void startPondering(Long gameId, Board board, AIDifficulty difficulty, PieceColor aiColor) {
+        if (ponderPool == null || difficulty != AIDifficulty.HARD) {
+            return;
+        }
+        Board ponderBoard = board.copy();
+        PieceColor opponentColor = opposite(aiColor);
+        int reply = predictReply(ponderBoard, opponentColor);
+        if (reply < 0) {
+            return;
+        }
+        Position replyPos = toPosition(reply);
+        ponderBoard.placeStone(replyPos.x, replyPos.y, opponentColor);
+        // 预测的应手直接结束对局，或者之后的局面在开局库中，都不需要思考
+        if (RenjuRules.isWin(ponderBoard, reply, stoneOf(opponentColor)) || ponderBoard.isFull()
+                || openingBook.probe(ponderBoard) >= 0) {
+            return;
         }
         
-        PieceColor currentColor = isMaximizing ? aiColor : 
-                (aiColor == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK);
-        
-        List<Position> moves = getOptimizedCandidatePositions(board);
-        
-        if (isMaximizing) {
-            int maxScore = Integer.MIN_VALUE;
-            for (Position pos : moves) {
-                // 检查是否超时
-                if (System.currentTimeMillis() - searchStartTime > MAX_SEARCH_TIME) {
-                    return evaluateBoard(board, aiColor);
-                }
-                
-                Board tempBoard = board.copy();
-                tempBoard.placeStone(pos.x, pos.y, currentColor);
-                int score = minimax(tempBoard, depth - 1, false, aiColor, alpha, beta);
-                maxScore = Math.max(maxScore, score);
-                alpha = Math.max(alpha, score);
-                if (beta <= alpha) {
-                    break; // Beta剪枝
-                }
-            }
-            return maxScore;
-        } else {
-            int minScore = Integer.MAX_VALUE;
-            for (Position pos : moves) {
-                // 检查是否超时
-                if (System.currentTimeMillis() - searchStartTime > MAX_SEARCH_TIME) {
-                    return evaluateBoard(board, aiColor);
-                }
-                
-                Board tempBoard = board.copy();
-                tempBoard.placeStone(pos.x, pos.y, currentColor);
-                int score = minimax(tempBoard, depth - 1, true, aiColor, alpha, beta);
-                minScore = Math.min(minScore, score);
-                beta = Math.min(beta, score);
-                if (beta <= alpha) {
-                    break; // Alpha剪枝
-                }
-            }
-            return minScore;
+        PonderSession session = new PonderSession(ponderBoard.getHash());
+        PonderSession previous = ponderSessions.put(gameId, session);
+        if (previous != null) {
+            previous.stop();
+        }
+        try {
+            ponderPool.execute(() -> ponder(session, ponderBoard, aiColor));
+        } catch (RejectedExecutionException e) {
+            ponderSessions.remove(gameId, session);
+            session.abandon();
         }
     }
     
     /**
-     * 评估棋盘分数
+     * 对方已落子：停止该对局的后台思考，结果保留给AI的下一步判断是否猜中
      */
-    private int evaluateBoard(Board board, PieceColor aiColor) {
-        int score = 0;
-        int aiStone = aiColor == PieceColor.BLACK ? 1 : 2;
-        int opponentStone = aiStone == 1 ? 2 : 1;
-        
-        // 评估所有位置的分数
-        for (int x = 0; x < Board.BOARD_SIZE; x++) {
-            for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                if (board.getStone(x, y) == aiStone) {
-                    score += evaluatePosition(board, x, y, aiStone);
-                } else if (board.getStone(x, y) == opponentStone) {
-                    score -= evaluatePosition(board, x, y, opponentStone);
-                }
+    public void stopPondering(Long gameId) {
+        PonderSession session = ponderSessions.get(gameId);
+        if (session != null) {
+            session.stop();
+        }
+    }
+    
+    /**
+     * 对局结束：停止并丢弃该对局的后台思考
+     */
+    public void cancelPondering(Long gameId) {
+        PonderSession session = ponderSessions.remove(gameId);
+        if (session != null) {
+            session.stop();
+        }
+    }
+    
+    /**
+     * 对局结束：丢弃该对局的后台思考和保留的蒙特卡洛子树
+     */
+    public void endGame(Long gameId) {
+        cancelPondering(gameId);
+        monteCarloTreeSearch.discard(gameId);
+    }
+    
+    /**
+     * 预测对方的应手：优先取置换表中该局面的最佳着法（通常就是上一步搜索的主变例），
+     * 否则取着法生成器排在第一的着法
+     */
+    private int predictReply(Board board, PieceColor color) {
+        long entry = transpositionTable.probe(board.getHash());
+        int cell = entry != 0L ? TranspositionTable.bestCell(entry) : -1;
+        if (cell >= 0 && board.isEmptyCell(cell)) {
+            return cell;
+        }
+        List<Position> moves = generateMoves(new SearchContext(board, aiProperties.getHard()), stoneOf(color), 1);
+        return moves.isEmpty() ? -1 : Board.index(moves.get(0).x, moves.get(0).y);
+    }
+    
+    /**
+     * 后台思考：与困难难度相同的威胁空间搜索 + 迭代加深，时间上限单独配置，
+     * 结果写入共享置换表，被停止时以最后一个完整深度的着法为准
+     */
+    private void ponder(PonderSession session, Board board, PieceColor aiColor) {
+        try {
+            long startTime = System.nanoTime();
+            ThreatVerdict verdict = solveThreats(board, aiColor);
+            if (verdict.move() != null) {
+                session.finish(verdict.move(), System.nanoTime() - startTime, true);
+                return;
             }
+            AIProperties.SearchBudget budget = new AIProperties.SearchBudget(
+                    aiProperties.getPonder().getTimeLimitMs(), 0, aiProperties.getHard().getMaxDepth());
+            SearchContext context = new SearchContext(board, budget, session.getStopSignal(), 0);
+            Position move = iterativeDeepening(context, aiColor, verdict.rootMoves());
+            session.finish(move, System.nanoTime() - startTime, !session.getStopSignal().get());
+        } catch (RuntimeException e) {
+            log.warn("后台思考失败", e);
+            session.abandon();
+        }
+    }
+    
+    /**
+     * 在主搜索之前运行威胁空间搜索：
+     * 1. 己方有VCF，直接按证明的第一步走；
+     * 2. 对方有VCF，主搜索只在能化解它的着法中选择；否则尝试己方VCT
+     */
+    private ThreatVerdict solveThreats(Board board, PieceColor aiColor) {
+        AIProperties.ThreatBudget threatBudget = aiProperties.getThreat();
+        ThreatSpaceSearch threatSearch = new ThreatSpaceSearch(board, threatBudget.getNodeLimit());
+        int aiStone = stoneOf(aiColor);
+        int opponentStone = 3 - aiStone;
+        
+        int vcfMove = threatSearch.findVcf(aiStone, threatBudget.getVcfDepth());
+        if (vcfMove >= 0) {
+            return new ThreatVerdict(toPosition(vcfMove), null);
         }
         
-        // 额外评估空位的潜在价值（仅评估关键位置以提高性能）
-        for (int x = 0; x < Board.BOARD_SIZE; x++) {
-            for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                if (board.isEmpty(x, y) && hasCloseNeighbor(board, x, y, 2)) {
-                    // 评估空位对AI的潜在价值
-                    Board tempBoard = board.copy();
-                    tempBoard.placeStone(x, y, aiColor);
-                    int aiPotential = evaluatePosition(tempBoard, x, y, aiStone);
-                    
-                    // 评估空位对对手的潜在价值
-                    tempBoard = board.copy();
-                    tempBoard.placeStone(x, y, aiColor == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK);
-                    int opponentPotential = evaluatePosition(tempBoard, x, y, opponentStone);
-                    
-                    // 综合考虑攻守价值
-                    score += (aiPotential - opponentPotential) * 0.1; // 给潜在价值较小的权重
+        int opponentVcf = threatSearch.findVcf(opponentStone, threatBudget.getVcfDepth());
+        if (opponentVcf >= 0) {
+            return new ThreatVerdict(null, findVcfDefences(board, aiColor, opponentVcf, threatSearch));
+        }
+        int vctMove = threatSearch.findVct(aiStone, threatBudget.getVctDepth());
+        return new ThreatVerdict(vctMove >= 0 ? toPosition(vctMove) : null, null);
+    }
+    
+    /**
+     * 威胁空间搜索的结论：直接走的着法，或主搜索应限定的根节点着法；都为null表示没有结论
+     */
+    private record ThreatVerdict(Position move, List<Position> rootMoves) {
+    }
+    
+    /**
+     * 迭代加深搜索，返回最后一个完整搜索完毕的深度给出的着法；
+     * 辅助线程从错开的深度开始，使各线程尽量不在同一层上重复工作
+     */
+    private Position iterativeDeepening(SearchContext context, PieceColor aiColor, List<Position> rootMoves) {
+        AIProperties.SearchBudget budget = aiProperties.getHard();
+        Position bestMove = null;
+        int completedDepth = 0;
+        int startDepth = 1 + (context.getHelperIndex() & 1);
+        int maxDepth = Math.min(budget.getMaxDepth(), SearchContext.MAX_PLY - 1);
+        int[] depthScores = new int[maxDepth + 1];
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            // 评估分数随行棋方奇偶层剧烈摆动，渴望窗口以两层前（同奇偶）的分数为中心；
+            // 落在窗口外时以返回的边界为起点放宽重搜
+            int window = ASPIRATION_WINDOW;
+            int previousScore = depth >= startDepth + 2 ? depthScores[depth - 2] : 0;
+            boolean aspirate = depth >= startDepth + 2 && Math.abs(previousScore) < WIN_THRESHOLD;
+            int alpha = aspirate ? previousScore - window : -INFINITY;
+            int beta = aspirate ? previousScore + window : INFINITY;
+            RootResult result;
+            while (true) {
+                result = searchRoot(context, aiColor, depth, rootMoves, alpha, beta);
+                if (context.isAborted()) {
+                    break;
+                }
+                if (result.score <= alpha && alpha > -INFINITY) {
+                    window *= 4;
+                    alpha = window > ASPIRATION_LIMIT ? -INFINITY : result.score - window;
+                } else if (result.score >= beta && beta < INFINITY) {
+                    window *= 4;
+                    beta = window > ASPIRATION_LIMIT ? INFINITY : result.score + window;
+                } else {
+                    break;
                 }
             }
+            if (context.isAborted()) {
+                break;
+            }
+            depthScores[depth] = result.score;
+            bestMove = result.move;
+            completedDepth = depth;
+            
+            // 已找到必胜/必败，或剩余时间不足以完成下一层，提前结束
+            if (Math.abs(result.score) > WIN_THRESHOLD
+                    || context.elapsed() > context.getTimeLimit() / 2) {
+                break;
+            }
         }
         
-        return score;
+        searchedNodes.add(context.getNodes());
+        if (context.getHelperIndex() == 0) {
+            log.debug("困难难度搜索结束: depth={}, nodes={}, elapsedMs={}",
+                    completedDepth, context.getNodes(), context.elapsed() / 1_000_000);
+        }
+        return bestMove;
     }
     
     /**
-     * 评估位置分数
+     * 找出能化解对方VCF的着法：对方VCF的第一步和其余候选点中，落子后已证明对方不再有VCF的位置；
+     * 预算用完没搜完的不算化解
      */
-    private int evaluatePosition(Board board, int x, int y, int stone) {
-        int score = 0;
+    private List<Position> findVcfDefences(Board board, PieceColor aiColor, int opponentVcf,
+                                           ThreatSpaceSearch threatSearch) {
+        AIProperties.ThreatBudget threatBudget = aiProperties.getThreat();
+        int opponentStone = 3 - stoneOf(aiColor);
+        
+        List<Position> candidates = generateMoves(new SearchContext(board, aiProperties.getHard()),
+                stoneOf(aiColor), Integer.MAX_VALUE);
+        Position vcfStart = toPosition(opponentVcf);
+        candidates.remove(vcfStart);
+        if (!isForbidden(board, aiColor, opponentVcf)) {
+            candidates.add(0, vcfStart);
+        }
         
-        // 评估四个方向
-        score += evaluateDirection(board, x, y, 1, 0, stone);   // 横向
-        score += evaluateDirection(board, x, y, 0, 1, stone);   // 纵向
-        score += evaluateDirection(board, x, y, 1, 1, stone);   // 斜向
-        score += evaluateDirection(board, x, y, 1, -1, stone);  // 反斜向
+        List<Position> defences = new ArrayList<>();
+        for (Position pos : candidates) {
+            board.placeStone(pos.x, pos.y, aiColor);
+            boolean refuted = RenjuRules.isWin(board, Board.index(pos.x, pos.y), stoneOf(aiColor))
+                    || threatSearch.findVcf(opponentStone, threatBudget.getVcfDepth()) == ThreatSpaceSearch.NOT_FOUND;
+            board.undoStone();
+            if (refuted) {
+                defences.add(pos);
+            }
+        }
         
-        return score;
+        // 无论怎么走都挡不住时，退回正常搜索
+        return defences.isEmpty() ? null : defences;
     }
     
     /**
-     * 评估指定方向的分数
-     */
-    private int evaluateDirection(Board board, int x, int y, int dx, int dy, int stone) {
-        int count = 1;
-        boolean openStart = true; // 开始方向是否开放
-        boolean openEnd = true;   // 结束方向是否开放
-        
-        // 正向计数
-        int nx = x + dx, ny = y + dy;
-        while (board.isValidPosition(nx, ny) && board.getStone(nx, ny) == stone) {
-            count++;
-            nx += dx;
-            ny += dy;
-        }
-        // 检查正向是否被阻挡
-        if (board.isValidPosition(nx, ny) && board.getStone(nx, ny) != 0) {
-            openEnd = false;
-        }
-        
-        // 反向计数
-        nx = x - dx; ny = y - dy;
-        while (board.isValidPosition(nx, ny) && board.getStone(nx, ny) == stone) {
-            count++;
-            nx -= dx;
-            ny -= dy;
-        }
-        // 检查反向是否被阻挡
-        if (board.isValidPosition(nx, ny) && board.getStone(nx, ny) != 0) {
-            openStart = false;
-        }
-        
-        // 根据连子数和开放情况返回分数
-        if (count >= 5) {
-            return 100000; // 五连
-        } else if (count == 4) {
-            if (openStart && openEnd) return 10000; // 活四
-            else if (openStart || openEnd) return 5000; // 冲四
-            else return 500; // 死四
-        } else if (count == 3) {
-            if (openStart && openEnd) return 1000; // 活三
-            else if (openStart || openEnd) return 200; // 眠三
-            else return 50; // 死三
-        } else if (count == 2) {
-            if (openStart && openEnd) return 100; // 活二
-            else if (openStart || openEnd) return 20; // 眠二
-            else return 5; // 死二
+     * 在(alpha, beta)窗口内对根节点做一次指定深度的搜索，rootMoves不为空时只搜索其中的着法；
+     * 返回的分数落在窗口外时只是边界，调用方需要放宽窗口重搜
+     */
+    private RootResult searchRoot(SearchContext context, PieceColor aiColor, int depth, List<Position> rootMoves,
+                                  int alpha, int beta) {
+        Board board = context.getBoard();
+        PieceColor opponentColor = opposite(aiColor);
+        Position bestMove = null;
+        int bestScore = -INFINITY;
+        int originalAlpha = alpha;
+        
+        List<Position> candidates;
+        if (rootMoves != null) {
+            candidates = new ArrayList<>(rootMoves);
+            moveHashMoveFirst(board, candidates);
         } else {
-            // 对于单子，检查是否形成开放局面
-            if (openStart && openEnd) return 10;
-            else return 5;
+            // 根节点不截断安静着法，置换表着法由生成器排在最前
+            candidates = generateMoves(context, stoneOf(aiColor), Integer.MAX_VALUE);
         }
-    }
-    
-    /**
-     * 寻找必胜点
-     */
-    private Position findWinningMove(Board board, PieceColor color) {
-        int stone = color == PieceColor.BLACK ? 1 : 2;
-        
-        for (int x = 0; x < Board.BOARD_SIZE; x++) {
-            for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                if (board.isEmpty(x, y)) {
-                    Board tempBoard = board.copy();
-                    tempBoard.placeStone(x, y, color);
-                    if (tempBoard.checkWin(x, y)) {
-                        return new Position(x, y);
-                    }
-                }
+        
+        // 辅助线程轮换除首个着法外的根节点顺序，让各线程优先展开不同的分支
+        if (context.getHelperIndex() > 0 && candidates.size() > 2) {
+            Collections.rotate(candidates.subList(1, candidates.size()), context.getHelperIndex());
+        }
+        
+        for (Position pos : candidates) {
+            context.makeMove(pos.x, pos.y, aiColor);
+            int score;
+            if (RenjuRules.isWin(board, Board.index(pos.x, pos.y), stoneOf(aiColor))) {
+                score = WIN_SCORE - 1;
+            } else {
+                score = principalVariationSearch(context, depth - 1, 1, alpha, beta, opponentColor, bestMove == null);
+            }
+            context.undoMove();
+            
+            if (context.isAborted()) {
+                break;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = pos;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
             }
         }
-        return null;
+        
+        if (bestMove != null && !context.isAborted()) {
+            int flag = bestScore <= originalAlpha ? TranspositionTable.UPPER
+                    : bestScore >= beta ? TranspositionTable.LOWER
+                    : TranspositionTable.EXACT;
+            transpositionTable.store(board.getHash(), depth, flag,
+                    scoreToTable(bestScore, 0), Board.index(bestMove.x, bestMove.y));
+        }
+        
+        return new RootResult(bestMove, bestScore);
     }
     
     /**
-     * 寻找防守点
+     * 根节点搜索结果
      */
-    private Position findBlockingMove(Board board, PieceColor opponentColor) {
-        return findWinningMove(board, opponentColor);
+    private record RootResult(Position move, int score) {
     }
     
     /**
-     * 获取优化的候选落子位置（只考虑关键区域，减少搜索空间）
+     * Negamax算法实现，返回值始终站在当前行棋方的角度
      */
-    private List<Position> getOptimizedCandidatePositions(Board board) {
-        List<Position> candidates = new ArrayList<>();
+    private int negamax(SearchContext context, int depth, int ply, int alpha, int beta, PieceColor color) {
+        Board board = context.getBoard();
+        
+        // 检查搜索预算
+        if (context.isBudgetExhausted()) {
+            return context.getEvaluator().evaluate(stoneOf(color));
+        }
+        
+        if (board.isFull()) {
+            return 0;
+        }
+        
+        if (depth == 0) {
+            return context.getEvaluator().evaluate(stoneOf(color));
+        }
         
-        // 优先考虑离现有棋子较近的位置，限制在2格范围内
-        for (int x = 0; x < Board.BOARD_SIZE; x++) {
-            for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                if (board.isEmpty(x, y) && hasCloseNeighbor(board, x, y, 2)) {
-                    candidates.add(new Position(x, y));
+        // 查询置换表：深度足够时直接使用其边界，否则至少借用其最佳着法排序
+        long hash = board.getHash();
+        long entry = transpositionTable.probe(hash);
+        if (entry != 0L && TranspositionTable.depth(entry) >= depth) {
+            int ttScore = scoreFromTable(TranspositionTable.score(entry), ply);
+            switch (TranspositionTable.flag(entry)) {
+                case TranspositionTable.EXACT -> {
+                    return ttScore;
                 }
+                case TranspositionTable.LOWER -> alpha = Math.max(alpha, ttScore);
+                case TranspositionTable.UPPER -> beta = Math.min(beta, ttScore);
+                default -> { }
+            }
+            if (alpha >= beta) {
+                return ttScore;
             }
         }
         
-        // 如果没有近邻位置，扩展到3格范围
-        if (candidates.isEmpty()) {
-            for (int x = 0; x < Board.BOARD_SIZE; x++) {
-                for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                    if (board.isEmpty(x, y) && hasCloseNeighbor(board, x, y, 3)) {
-                        candidates.add(new Position(x, y));
-                    }
+        int originalAlpha = alpha;
+        PieceColor opponentColor = opposite(color);
+        int stone = stoneOf(color);
+        int hashCell = entry != 0L ? TranspositionTable.bestCell(entry) : -1;
+        int count = MoveGenerator.generate(context, stone, ply, hashCell, MoveGenerator.QUIET_LIMIT);
+        int[] moves = context.moveBuffer(ply);
+        long[] keys = context.keyBuffer(ply);
+        
+        int bestScore = -INFINITY;
+        int bestCell = -1;
+        for (int i = 0; i < count; i++) {
+            int cell = moves[i];
+            int x = cell / Board.BOARD_SIZE;
+            int y = cell % Board.BOARD_SIZE;
+            context.makeMove(x, y, color);
+            int score;
+            if (RenjuRules.isWin(board, cell, stoneOf(color))) {
+                score = WIN_SCORE - ply - 1;
+            } else {
+                score = principalVariationSearch(context, depth - 1, ply + 1, alpha, beta, opponentColor, i == 0);
+            }
+            context.undoMove();
+            
+            if (context.isAborted()) {
+                break;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestCell = cell;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                if (MoveGenerator.isQuiet(keys[i])) {
+                    context.recordCutoff(stone, cell, depth, ply);
                 }
+                break; // 剪枝
             }
         }
         
-        // 如果还是没有候选位置，返回中心点
-        if (candidates.isEmpty()) {
-            candidates.add(new Position(7, 7));
+        // 超时中断的结果不完整，不写入置换表
+        if (!context.isAborted()) {
+            int flag = bestScore <= originalAlpha ? TranspositionTable.UPPER
+                    : bestScore >= beta ? TranspositionTable.LOWER
+                    : TranspositionTable.EXACT;
+            transpositionTable.store(hash, depth, flag, scoreToTable(bestScore, ply), bestCell);
         }
         
-        // 限制候选位置数量以提高性能
-        if (candidates.size() > 20) {
-            // 选择评分最高的前20个位置
-            candidates.sort((p1, p2) -> {
-                Board tempBoard1 = board.copy();
-                Board tempBoard2 = board.copy();
-                tempBoard1.placeStone(p1.x, p1.y, PieceColor.BLACK); // 临时使用黑棋计算
-                tempBoard2.placeStone(p2.x, p2.y, PieceColor.BLACK);
-                int score1 = evaluatePosition(tempBoard1, p1.x, p1.y, 1);
-                int score2 = evaluatePosition(tempBoard2, p2.x, p2.y, 1);
-                return Integer.compare(score2, score1); // 降序排列
-            });
-            return candidates.subList(0, 20);
+        return bestScore;
+    }
+    
+    /**
+     * PVS：首个着法用完整窗口搜索，其余着法先用零窗口证明不优于当前最好着法，
+     * 证明失败（分数落在窗口内）时再用完整窗口重搜。返回值已换算为父节点行棋方的角度
+     */
+    private int principalVariationSearch(SearchContext context, int depth, int ply, int alpha, int beta,
+                                         PieceColor color, boolean firstMove) {
+        if (firstMove) {
+            return -negamax(context, depth, ply, -beta, -alpha, color);
         }
-        
-        return candidates;
+        int score = -negamax(context, depth, ply, -alpha - 1, -alpha, color);
+        if (score > alpha && score < beta && !context.isAborted()) {
+            score = -negamax(context, depth, ply, -beta, -alpha, color);
+        }
+        return score;
     }
     
     /**
-     * 检查指定范围内是否有棋子
+     * 在根节点生成排好序的着法列表
      */
-    private boolean hasCloseNeighbor(Board board, int x, int y, int range) {
-        for (int dx = -range; dx <= range; dx++) {
-            for (int dy = -range; dy <= range; dy++) {
-                if (dx == 0 && dy == 0) continue;
-                int nx = x + dx;
-                int ny = y + dy;
-                if (board.isValidPosition(nx, ny) && !board.isEmpty(nx, ny)) {
-                    return true;
-                }
-            }
+    private List<Position> generateMoves(SearchContext context, int stone, int quietLimit) {
+        long entry = transpositionTable.probe(context.getBoard().getHash());
+        int hashCell = entry != 0L ? TranspositionTable.bestCell(entry) : -1;
+        int count = MoveGenerator.generate(context, stone, 0, hashCell, quietLimit);
+        int[] moves = context.moveBuffer(0);
+        List<Position> positions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            positions.add(toPosition(moves[i]));
         }
-        return false;
+        return positions;
     }
     
     /**
-     * 寻找能形成四子的落子点
+     * 把置换表中记录的最佳着法移到候选列表最前面
      */
-    private Position findFourMove(Board board, PieceColor color) {
-        int stone = color == PieceColor.BLACK ? 1 : 2;
-        
-        for (int x = 0; x < Board.BOARD_SIZE; x++) {
-            for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                if (board.isEmpty(x, y)) {
-                    Board tempBoard = board.copy();
-                    tempBoard.placeStone(x, y, color);
-                    
-                    // 检查是否形成了四子
-                    if (hasFourInLine(tempBoard, x, y, stone)) {
-                        return new Position(x, y);
-                    }
-                }
+    private void moveHashMoveFirst(Board board, List<Position> moves) {
+        long entry = transpositionTable.probe(board.getHash());
+        if (entry == 0L) {
+            return;
+        }
+        int cell = TranspositionTable.bestCell(entry);
+        for (int i = 1; i < moves.size(); i++) {
+            Position pos = moves.get(i);
+            if (Board.index(pos.x, pos.y) == cell) {
+                moves.add(0, moves.remove(i));
+                return;
             }
         }
-        return null;
     }
     
     /**
-     * 检查是否形成了四子连线
+     * 胜负分数与到达距离有关，写入置换表时换算为相对当前节点的值
      */
-    private boolean hasFourInLine(Board board, int x, int y, int stone) {
-        // 检查四个方向
-        int count1 = countDirection(board, x, y, 1, 0, stone); // 横向
-        int count2 = countDirection(board, x, y, 0, 1, stone); // 纵向
-        int count3 = countDirection(board, x, y, 1, 1, stone); // 斜向
-        int count4 = countDirection(board, x, y, 1, -1, stone); // 反斜向
-        
-        // 如果任一方向形成4子或更多，则返回true
-        return count1 >= 4 || count2 >= 4 || count3 >= 4 || count4 >= 4;
+    private int scoreToTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score + ply;
+        if (score < -WIN_THRESHOLD) return score - ply;
+        return score;
+    }
+    
+    private int scoreFromTable(int score, int ply) {
+        if (score > WIN_THRESHOLD) return score - ply;
+        if (score < -WIN_THRESHOLD) return score + ply;
+        return score;
+    }
+    
+    private PieceColor opposite(PieceColor color) {
+        return color == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+    }
+    
+    private Position toPosition(int cell) {
+        return new Position(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE);
+    }
+    
+    private int stoneOf(PieceColor color) {
+        return color == PieceColor.BLACK ? Board.BLACK : Board.WHITE;
     }
     
     /**
-     * 计算指定方向的连子数
+     * 寻找必胜点：直接查棋盘的威胁索引
      */
-    private int countDirection(Board board, int x, int y, int dx, int dy, int stone) {
-        int count = 1;
-        
-        // 正向计数
-        int nx = x + dx, ny = y + dy;
-        while (board.isValidPosition(nx, ny) && board.getStone(nx, ny) == stone) {
-            count++;
-            nx += dx;
-            ny += dy;
+    private Position findWinningMove(Board board, PieceColor color) {
+        int cell = board.firstFivePoint(stoneOf(color));
+        return cell >= 0 ? toPosition(cell) : null;
+    }
+    
+    /**
+     * 寻找color的必胜点中mover可以落子的第一个（mover为黑棋时跳过禁手点）
+     */
+    private Position findWinningMove(Board board, PieceColor color, PieceColor mover) {
+        if (mover != PieceColor.BLACK) {
+            return findWinningMove(board, color);
         }
-        
-        // 反向计数
-        nx = x - dx; ny = y - dy;
-        while (board.isValidPosition(nx, ny) && board.getStone(nx, ny) == stone) {
-            count++;
-            nx -= dx;
-            ny -= dy;
+        int cell = board.firstFivePoint(stoneOf(color), c -> !RenjuRules.isForbidden(board, c));
+        return cell >= 0 ? toPosition(cell) : null;
+    }
+    
+    /**
+     * 寻找防守点
+     */
+    private Position findBlockingMove(Board board, PieceColor opponentColor) {
+        return findWinningMove(board, opponentColor);
+    }
+    
+    /**
+     * 寻找能形成四子的落子点
+     */
+    private Position findFourMove(Board board, PieceColor color) {
+        int cell = board.firstFourPoint(stoneOf(color));
+        return cell >= 0 ? toPosition(cell) : null;
+    }
+    
+    /**
+     * 寻找color能形成四子的点中mover可以落子的第一个（mover为黑棋时跳过禁手点）
+     */
+    private Position findFourMove(Board board, PieceColor color, PieceColor mover) {
+        if (mover != PieceColor.BLACK) {
+            return findFourMove(board, color);
         }
-        
-        return count;
+        int cell = board.firstFourPoint(stoneOf(color), c -> !RenjuRules.isForbidden(board, c));
+        return cell >= 0 ? toPosition(cell) : null;
     }
     
     /**
-     * 寻找最佳落子点
+     * 寻找最佳落子点，没有可下的候选点时返回null
      */
     private Position findBestMove(Board board, PieceColor aiColor) {
         List<Position> candidates = getCandidatePositions(board);
@@ -457,28 +801,27 @@ public class AIEngine {
         int bestScore = Integer.MIN_VALUE;
         
         for (Position pos : candidates) {
-            int score = evaluatePosition(board, pos.x, pos.y, aiColor == PieceColor.BLACK ? 1 : 2);
+            int cell = Board.index(pos.x, pos.y);
+            if (isForbidden(board, aiColor, cell)) {
+                continue;
+            }
+            int score = MoveGenerator.evaluatePosition(board, cell, stoneOf(aiColor));
             if (score > bestScore) {
                 bestScore = score;
                 bestPos = pos;
             }
         }
         
-        return bestPos != null ? bestPos : getRandomMove(board);
+        return bestPos;
     }
     
     /**
      * 获取候选落子位置（周围有子的位置）
      */
     private List<Position> getCandidatePositions(Board board) {
-        List<Position> candidates = new ArrayList<>();
-        
-        for (int x = 0; x < Board.BOARD_SIZE; x++) {
-            for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                if (board.isEmpty(x, y) && hasNeighbor(board, x, y)) {
-                    candidates.add(new Position(x, y));
-                }
-            }
+        List<Position> candidates = new ArrayList<>(board.getCandidateCount());
+        for (int cell = board.nextCandidate(0); cell >= 0; cell = board.nextCandidate(cell + 1)) {
+            candidates.add(toPosition(cell));
         }
         
         // 如果没有候选位置，返回中心点
@@ -490,41 +833,34 @@ public class AIEngine {
     }
     
     /**
-     * 检查周围是否有棋子
+     * 获取随机落子位置，黑棋避开禁手点
      */
-    private boolean hasNeighbor(Board board, int x, int y) {
-        for (int dx = -2; dx <= 2; dx++) {
-            for (int dy = -2; dy <= 2; dy++) {
-                if (dx == 0 && dy == 0) continue;
-                int nx = x + dx;
-                int ny = y + dy;
-                if (board.isValidPosition(nx, ny) && !board.isEmpty(nx, ny)) {
-                    return true;
-                }
+    private Position getRandomMove(Board board, PieceColor color) {
+        int emptyCount = Board.CELL_COUNT - board.getMoveCount();
+        if (emptyCount == 0) {
+            return null;
+        }
+        
+        for (int attempt = 0; attempt < RANDOM_MOVE_ATTEMPTS; attempt++) {
+            int cell = board.nthEmptyCell(ThreadLocalRandom.current().nextInt(emptyCount));
+            if (!isForbidden(board, color, cell)) {
+                return toPosition(cell);
             }
         }
-        return false;
+        // 随机几次都落在禁手点上，按格子顺序找第一个可下的空位
+        for (int cell = 0; cell < Board.CELL_COUNT; cell++) {
+            if (board.isEmptyCell(cell) && !isForbidden(board, color, cell)) {
+                return toPosition(cell);
+            }
+        }
+        return null;
     }
     
     /**
-     * 获取随机落子位置
+     * 该方在空点落子是否为禁手（只有黑棋有禁手）
      */
-    private Position getRandomMove(Board board) {
-        List<Position> emptyPositions = new ArrayList<>();
-        
-        for (int x = 0; x < Board.BOARD_SIZE; x++) {
-            for (int y = 0; y < Board.BOARD_SIZE; y++) {
-                if (board.isEmpty(x, y)) {
-                    emptyPositions.add(new Position(x, y));
-                }
-            }
-        }
-        
-        if (emptyPositions.isEmpty()) {
-            return null;
-        }
-        
-        return emptyPositions.get(random.nextInt(emptyPositions.size()));
+    private boolean isForbidden(Board board, PieceColor color, int cell) {
+        return color == PieceColor.BLACK && RenjuRules.isForbidden(board, cell);
     }
     
     /**
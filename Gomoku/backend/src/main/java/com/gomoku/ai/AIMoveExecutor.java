@@ -0,0 +1,120 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.AIDifficulty;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * AI计算专用线程池
+ *
+ * AI落子不再占用Tomcat请求线程和数据库连接，而是在这里排队执行。
+ * 队列按难度排优先级：简单、中等难度耗时极短，优先于困难难度执行；同一难度先进先出。
+ * 排队数超过降级阈值时困难/专家难度降为中等难度，超过容量上限时直接拒绝。
+ */
+@Component
+@Slf4j
+public class AIMoveExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final int degradeThreshold;
+
+    // 排队与执行中的任务数
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final AtomicLong degradedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    public AIMoveExecutor(AIProperties aiProperties) {
+        AIProperties.Executor config = aiProperties.getExecutor();
+        int threads = config.resolveThreads();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ai-move-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.queueCapacity = config.getQueueCapacity();
+        this.degradeThreshold = config.getDegradeThreshold();
+    }
+
+    /**
+     * 提交AI计算任务，任务收到的是实际使用的难度（可能已被降级）
+     *
+     * @return 队列已满被拒绝时返回false
+     */
+    public boolean submit(AIDifficulty difficulty, Consumer<AIDifficulty> task) {
+        int load = pending.incrementAndGet();
+        if (load > queueCapacity) {
+            pending.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            log.warn("AI任务队列已满，拒绝任务: difficulty={}, pending={}", difficulty, load - 1);
+            return false;
+        }
+
+        AIDifficulty effective = difficulty;
+        boolean searching = difficulty == AIDifficulty.HARD || difficulty == AIDifficulty.EXPERT;
+        if (searching && load > degradeThreshold) {
+            effective = AIDifficulty.MEDIUM;
+            degradedCount.incrementAndGet();
+        }
+
+        AIDifficulty finalDifficulty = effective;
+        executor.execute(new PrioritizedTask(effective.ordinal(), sequence.getAndIncrement(), () -> {
+            try {
+                task.accept(finalDifficulty);
+            } catch (Exception e) {
+                log.error("AI任务执行失败", e);
+            } finally {
+                pending.decrementAndGet();
+            }
+        }));
+        return true;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    public long getDegradedCount() {
+        return degradedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 带优先级的任务：难度序号小的先执行，同难度按提交顺序执行
+     */
+    private record PrioritizedTask(int priority, long sequence, Runnable task)
+            implements Runnable, Comparable<PrioritizedTask> {
+
+        @Override
+        public void run() {
+            task.run();
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int byPriority = Integer.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.gomoku.ai;
+
+import com.gomoku.game.Board;
+
+/**
+ * 增量式棋形评估器
+ *
+ * 为棋盘上72条长度不小于5的线分别记录黑白双方的棋形分数，
+ * 落子/撤销时只重新计算经过该格子的四条线。
+ * 每条线按6格窗口滑动，窗口棋形（连五、活四、冲四、活三、眠三、活二……）
+ * 通过预先计算好的表查出，表的下标是窗口内己方棋子与阻挡格的位编码。
+ */
+public class IncrementalEvaluator {
+
+    public static final int FIVE = 100000;
+    public static final int LIVE_FOUR = 10000;
+    public static final int FOUR = 1000;
+    public static final int LIVE_THREE = 1000;
+    public static final int THREE = 100;
+    public static final int LIVE_TWO = 100;
+    public static final int TWO = 10;
+    public static final int ONE = 1;
+
+    private static final int WINDOW = 6;
+    private static final int WINDOW_MASK = (1 << WINDOW) - 1;
+
+    // 窗口棋形分数表，下标为 (己方6位 << 6) | 阻挡6位（对方棋子或棋盘外）
+    static final int[] SHAPE_SCORE = new int[1 << (WINDOW * 2)];
+
+    // 每条线有效位的起止位序，长度不足5的线标记为不参与评估
+    private static final int[] LINE_LOW = new int[Board.LINE_COUNT];
+    private static final int[] LINE_HIGH = new int[Board.LINE_COUNT];
+    private static final boolean[] LINE_SCORED = new boolean[Board.LINE_COUNT];
+
+    static {
+        for (int own = 0; own <= WINDOW_MASK; own++) {
+            for (int blocked = 0; blocked <= WINDOW_MASK; blocked++) {
+                if ((own & blocked) == 0) {
+                    SHAPE_SCORE[(own << WINDOW) | blocked] = classify(own, blocked);
+                }
+            }
+        }
+        for (int line = 0; line < Board.LINE_COUNT; line++) {
+            int mask = Board.lineMask(line);
+            LINE_LOW[line] = Integer.numberOfTrailingZeros(mask);
+            LINE_HIGH[line] = 31 - Integer.numberOfLeadingZeros(mask);
+            LINE_SCORED[line] = Integer.bitCount(mask) >= 5;
+        }
+    }
+
+    /**
+     * 识别6格窗口中的最强棋形
+     */
+    private static int classify(int own, int blocked) {
+        int empty = ~(own | blocked) & WINDOW_MASK;
+        boolean edgesOpen = (empty & 0b100001) == 0b100001;
+        int inner = Integer.bitCount(own & 0b011110);
+
+        int best = 0;
+        for (int start = 0; start <= 1; start++) {
+            int five = 0b11111 << start;
+            int ownCount = Integer.bitCount(own & five);
+            int emptyCount = Integer.bitCount(empty & five);
+            if (ownCount == 5) {
+                return FIVE;
+            }
+            if (ownCount + emptyCount < 5) {
+                continue;
+            }
+            best = Math.max(best, switch (ownCount) {
+                case 4 -> FOUR;
+                case 3 -> THREE;
+                case 2 -> TWO;
+                case 1 -> ONE;
+                default -> 0;
+            });
+        }
+
+        if (edgesOpen && (own & 0b100001) == 0 && (blocked & 0b011110) == 0) {
+            if (inner == 4) {
+                best = Math.max(best, LIVE_FOUR);
+            } else if (inner == 3) {
+                best = Math.max(best, LIVE_THREE);
+            } else if (inner == 2) {
+                best = Math.max(best, LIVE_TWO);
+            }
+        }
+        return best;
+    }
+
+    // 每种颜色在每条线上的棋形分数及其总和
+    private final int[][] lineScores = new int[2][Board.LINE_COUNT];
+    private final int[] totals = new int[2];
+
+    private final Board board;
+
+    public IncrementalEvaluator(Board board) {
+        this.board = board;
+        for (int line = 0; line < Board.LINE_COUNT; line++) {
+            rescoreLine(line);
+        }
+    }
+
+    /**
+     * 格子发生变化（落子或撤销）后调用，只重新计算经过该格子的四条线
+     */
+    public void update(int cell) {
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            rescoreLine(Board.lineOf(d, cell));
+        }
+    }
+
+    /**
+     * 站在指定棋子一方的角度给出局面分数
+     */
+    public int evaluate(int stone) {
+        return totals[stone - 1] - totals[2 - stone];
+    }
+
+    /**
+     * 指定棋子一方的棋形总分
+     */
+    public int getTotal(int stone) {
+        return totals[stone - 1];
+    }
+
+    private void rescoreLine(int line) {
+        if (!LINE_SCORED[line]) {
+            return;
+        }
+        int black = board.getLine(Board.BLACK, line);
+        int white = board.getLine(Board.WHITE, line);
+        for (int side = 0; side < 2; side++) {
+            int own = side == 0 ? black : white;
+            int opponent = side == 0 ? white : black;
+            int score = scoreLine(line, own, opponent);
+            totals[side] += score - lineScores[side][line];
+            lineScores[side][line] = score;
+        }
+    }
+
+    /**
+     * 计算一条线上某一方的棋形分数
+     */
+    static int scoreLine(int line, int own, int opponent) {
+        // 整体左移一位，使位序-1（棋盘外）也能落在窗口里；线外的格子一律视为阻挡
+        int shiftedOwn = own << 1;
+        int shiftedBlocked = ((opponent | ~Board.lineMask(line)) << 1) | 1;
+        int score = 0;
+        for (int start = LINE_LOW[line]; start <= LINE_HIGH[line] - 3; start++) {
+            int ownWindow = (shiftedOwn >>> start) & WINDOW_MASK;
+            int blockedWindow = (shiftedBlocked >>> start) & WINDOW_MASK;
+            score += SHAPE_SCORE[(ownWindow << WINDOW) | blockedWindow];
+        }
+        return score;
+    }
+}
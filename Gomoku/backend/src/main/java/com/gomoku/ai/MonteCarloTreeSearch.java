@@ -0,0 +1,410 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import com.gomoku.game.RenjuRules;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 蒙特卡洛树搜索（UCT）
+ *
+ * 每次迭代：按UCT公式选择到叶子，展开一层（子节点按 {@link MoveGenerator} 的威胁优先顺序排列），
+ * 从新节点开始做一次由棋形引导的快速模拟，再把结果沿路径回传。
+ * 模拟直接在位棋盘上落子/撤销，不复制棋盘；超过模拟步数仍未分胜负时按评估分折算胜率。
+ *
+ * 同一局中AI落子后按对局ID保留所选子树，对方应手后从对应的孙节点继续搜索；对局结束时丢弃。
+ * 有空闲核心时采用根并行：各线程独立建树，最后按着法合并根节点访问次数。
+ */
+@Slf4j
+class MonteCarloTreeSearch {
+
+    // 模拟时在威胁着法之外考虑的安静着法数量
+    private static final int ROLLOUT_QUIET = 3;
+
+    // 树内展开时保留的安静着法数量
+    private static final int EXPANSION_QUIET = 12;
+
+    // 模拟截断时把评估分折算为胜率的尺度
+    private static final double EVAL_SCALE = 2000.0;
+
+    private final AIProperties.Mcts config;
+    private final SearchThreadPool helperPool;
+
+    // 保留的子树：键为对局ID，值为AI落子后的局面及其节点
+    private final Map<Long, ReusedTree> reusableTrees;
+
+    MonteCarloTreeSearch(AIProperties.Mcts config, SearchThreadPool helperPool) {
+        this.config = config;
+        this.helperPool = helperPool;
+        int capacity = config.getReusedTrees();
+        this.reusableTrees = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, ReusedTree> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    /**
+     * 丢弃所有保留的子树
+     */
+    void clear() {
+        reusableTrees.clear();
+    }
+
+    /**
+     * 对局结束：丢弃该对局保留的子树
+     */
+    void discard(Long gameId) {
+        reusableTrees.remove(gameId);
+    }
+
+    /**
+     * 搜索并返回最佳着法的格子编号；rootMoves不为空时根节点只考虑其中的着法
+     *
+     * @param gameId 对局ID，不为空时保留子树给该对局的下一步，为空时不保留
+     */
+    int search(Board board, PieceColor aiColor, List<AIEngine.Position> rootMoves, Long gameId) {
+        int stone = aiColor == PieceColor.BLACK ? Board.BLACK : Board.WHITE;
+        // 取出后即不再保留：根节点受限时不能沿用，搜索后会换成新的子树
+        ReusedTree reused = gameId != null ? reusableTrees.remove(gameId) : null;
+        Node root = reused != null && rootMoves == null ? takeReusableTree(board, reused) : null;
+        if (root == null) {
+            root = new Node(board.getLastMove(), 3 - stone);
+        }
+        if (rootMoves != null) {
+            root.restrictTo(rootMoves);
+        }
+
+        int helpers = helperPool != null ? helperPool.acquire() : 0;
+        Node[] helperRoots = new Node[helpers];
+        CountDownLatch finished = new CountDownLatch(helpers);
+        AtomicBoolean stopSignal = new AtomicBoolean();
+        long startTime = System.nanoTime();
+        try {
+            for (int i = 0; i < helpers; i++) {
+                int index = i;
+                Board helperBoard = board.copy();
+                Node helperRoot = new Node(board.getLastMove(), 3 - stone);
+                if (rootMoves != null) {
+                    helperRoot.restrictTo(rootMoves);
+                }
+                if (!helperPool.trySubmit(() -> {
+                    try {
+                        runIterations(helperBoard, helperRoot, startTime, stopSignal);
+                        helperRoots[index] = helperRoot;
+                    } finally {
+                        finished.countDown();
+                    }
+                })) {
+                    finished.countDown();
+                }
+            }
+
+            long iterations = runIterations(board, root, startTime, stopSignal);
+            // 主线程结束后通知辅助线程停止，等它们全部退出后再读取其根节点，
+            // 辅助线程每32次迭代检查一次停止信号，等待很短
+            stopSignal.set(true);
+            finished.await();
+
+            Node best = selectMostVisited(root, helperRoots);
+            if (best == null) {
+                return -1;
+            }
+            log.debug("MCTS搜索结束: iterations={}, rootVisits={}, bestVisits={}, elapsedMs={}",
+                    iterations, root.visits, best.visits, (System.nanoTime() - startTime) / 1_000_000);
+
+            if (gameId != null) {
+                board.placeStone(best.move / Board.BOARD_SIZE, best.move % Board.BOARD_SIZE, aiColor);
+                reusableTrees.put(gameId, new ReusedTree(board.getHash(), best));
+                board.undoStone();
+            }
+            return best.move;
+        } catch (InterruptedException e) {
+            // 辅助线程可能仍在运行，只用主线程的统计
+            Thread.currentThread().interrupt();
+            Node best = selectMostVisited(root, new Node[0]);
+            return best != null ? best.move : -1;
+        } finally {
+            stopSignal.set(true);
+            if (helpers > 0) {
+                helperPool.release();
+            }
+        }
+    }
+
+    /**
+     * 从该对局上一步保留的子树中找到当前局面：撤销对方最后一步后应当正是AI上一步落子后的局面，对不上时不沿用
+     */
+    private Node takeReusableTree(Board board, ReusedTree reused) {
+        int lastMove = board.getLastMove();
+        if (lastMove < 0) {
+            return null;
+        }
+        int lastStone = board.getStoneAt(lastMove);
+        board.undoStone();
+        long previousHash = board.getHash();
+        board.placeStone(lastMove / Board.BOARD_SIZE, lastMove % Board.BOARD_SIZE,
+                lastStone == Board.BLACK ? PieceColor.BLACK : PieceColor.WHITE);
+        Node previous = reused.node();
+        if (reused.hash() != previousHash || previous.children == null) {
+            return null;
+        }
+        for (Node child : previous.children) {
+            if (child.move == lastMove) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在时间和迭代次数预算内反复执行“选择-展开-模拟-回传”，收到停止信号时提前结束
+     */
+    private long runIterations(Board board, Node root, long startTime, AtomicBoolean stopSignal) {
+        SearchContext context = new SearchContext(board,
+                new AIProperties.SearchBudget(config.getTimeLimitMs(), 0, 0));
+        long deadline = startTime + config.getTimeLimitMs() * 1_000_000L;
+        long iterationLimit = config.getIterationLimit();
+        int[] nodeCount = {root.size()};
+        Node[] path = new Node[Board.CELL_COUNT + 1];
+
+        long iterations = 0;
+        while (iterationLimit <= 0 || iterations < iterationLimit) {
+            // 每32次迭代读取一次时钟和停止信号
+            if ((iterations & 31) == 0 && (System.nanoTime() - deadline > 0 || stopSignal.get())) {
+                break;
+            }
+            iterate(context, root, path, nodeCount);
+            iterations++;
+        }
+        return iterations;
+    }
+
+    private void iterate(SearchContext context, Node root, Node[] path, int[] nodeCount) {
+        Board board = context.getBoard();
+        int depth = 0;
+        Node node = root;
+        path[depth++] = node;
+
+        // 选择：沿UCT值最大的子节点下行，直到叶子或终局
+        while (node.children != null && node.children.length > 0 && !node.terminal) {
+            node = node.select(config.getExploration());
+            context.makeMove(node.move / Board.BOARD_SIZE, node.move % Board.BOARD_SIZE, colorOf(node.stone));
+            path[depth++] = node;
+        }
+
+        // 展开：访问过的非终局叶子生成子节点，然后进入第一个子节点
+        if (!node.terminal && node.visits > 0 && node.children == null && nodeCount[0] < config.getMaxTreeNodes()) {
+            node.expand(context);
+            nodeCount[0] += node.children.length;
+            if (node.children.length > 0) {
+                node = node.select(config.getExploration());
+                context.makeMove(node.move / Board.BOARD_SIZE, node.move % Board.BOARD_SIZE, colorOf(node.stone));
+                path[depth++] = node;
+            }
+        }
+
+        // 模拟：结果为最后落子一方（node.stone）的得分
+        double result;
+        if (node.terminal || (node.move >= 0 && RenjuRules.isWin(board, node.move, node.stone))) {
+            node.terminal = true;
+            result = 1.0;
+        } else if (board.isFull()) {
+            node.terminal = true;
+            result = 0.5;
+        } else {
+            result = rollout(context, 3 - node.stone);
+        }
+
+        // 回传：每层交替换算到该层落子方的角度
+        for (int i = depth - 1; i >= 0; i--) {
+            Node n = path[i];
+            n.visits++;
+            n.wins += result;
+            result = 1.0 - result;
+        }
+        for (int i = depth - 1; i > 0; i--) {
+            context.undoMove();
+        }
+    }
+
+    /**
+     * 棋形引导的快速模拟：有五连点或需要挡五时由着法生成器直接给出，
+     * 否则一半概率走排序第一的着法，其余在前几个着法中随机选择。
+     * 返回先手方（toMove的对手，即上一手落子方）的得分
+     */
+    private double rollout(SearchContext context, int toMove) {
+        Board board = context.getBoard();
+        int lastMover = 3 - toMove;
+        int stone = toMove;
+        int played = 0;
+        double result = -1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        while (played < config.getRolloutDepth()) {
+            int count = MoveGenerator.generate(context, stone, 0, -1, ROLLOUT_QUIET);
+            if (count == 0) {
+                result = 0.5;
+                break;
+            }
+            int[] moves = context.moveBuffer(0);
+            int cell = count == 1 || random.nextBoolean() ? moves[0] : moves[random.nextInt(count)];
+            int x = cell / Board.BOARD_SIZE;
+            int y = cell % Board.BOARD_SIZE;
+            context.makeMove(x, y, colorOf(stone));
+            played++;
+            if (RenjuRules.isWin(board, cell, stone)) {
+                result = stone == lastMover ? 1.0 : 0.0;
+                break;
+            }
+            if (board.isFull()) {
+                result = 0.5;
+                break;
+            }
+            stone = 3 - stone;
+        }
+
+        if (result < 0) {
+            // 未分胜负：按评估分折算胜率
+            int score = context.getEvaluator().evaluate(lastMover);
+            result = 1.0 / (1.0 + Math.exp(-score / EVAL_SCALE));
+        }
+        for (int i = 0; i < played; i++) {
+            context.undoMove();
+        }
+        return result;
+    }
+
+    /**
+     * 合并主线程和辅助线程的根节点统计，返回访问次数最多的着法对应的主线程子节点
+     */
+    private Node selectMostVisited(Node root, Node[] helperRoots) {
+        if (root.children == null || root.children.length == 0) {
+            return null;
+        }
+        Node best = null;
+        long bestVisits = -1;
+        for (Node child : root.children) {
+            long visits = child.visits;
+            for (Node helperRoot : helperRoots) {
+                Node helperChild = helperRoot != null ? helperRoot.child(child.move) : null;
+                if (helperChild != null) {
+                    visits += helperChild.visits;
+                }
+            }
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    private static PieceColor colorOf(int stone) {
+        return stone == Board.BLACK ? PieceColor.BLACK : PieceColor.WHITE;
+    }
+
+    /**
+     * 对局保留的子树：AI落子后的局面哈希及对应节点
+     */
+    private record ReusedTree(long hash, Node node) {
+    }
+
+    /**
+     * 搜索树节点，统计值站在落下 move 的一方（stone）的角度
+     */
+    private static final class Node {
+
+        final int move;
+        final int stone;
+        Node[] children;
+        int visits;
+        double wins;
+        boolean terminal;
+
+        Node(int move, int stone) {
+            this.move = move;
+            this.stone = stone;
+        }
+
+        /**
+         * 用着法生成器展开子节点，顺序即首次访问的顺序
+         */
+        void expand(SearchContext context) {
+            int childStone = 3 - stone;
+            int count = MoveGenerator.generate(context, childStone, 0, -1, EXPANSION_QUIET);
+            int[] moves = context.moveBuffer(0);
+            children = new Node[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = new Node(moves[i], childStone);
+            }
+        }
+
+        /**
+         * 根节点只保留指定的着法（例如化解对方VCF的防守点）
+         */
+        void restrictTo(List<AIEngine.Position> moves) {
+            Node[] restricted = new Node[moves.size()];
+            for (int i = 0; i < restricted.length; i++) {
+                AIEngine.Position pos = moves.get(i);
+                int cell = Board.index(pos.getX(), pos.getY());
+                Node existing = child(cell);
+                restricted[i] = existing != null ? existing : new Node(cell, 3 - stone);
+            }
+            children = restricted;
+        }
+
+        /**
+         * UCT选择：未访问的子节点按展开顺序优先
+         */
+        Node select(double exploration) {
+            double logVisits = Math.log(Math.max(1, visits));
+            Node best = null;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                if (child.visits == 0) {
+                    return child;
+                }
+                double value = child.wins / child.visits
+                        + exploration * Math.sqrt(logVisits / child.visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        Node child(int cell) {
+            if (children == null) {
+                return null;
+            }
+            for (Node child : children) {
+                if (child.move == cell) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        int size() {
+            int size = 1;
+            if (children != null) {
+                for (Node child : children) {
+                    size += child.size();
+                }
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.gomoku.ai;
+
+import com.gomoku.game.Board;
+import com.gomoku.game.RenjuRules;
+
+/**
+ * 搜索着法生成与排序
+ *
+ * 每个节点只计算一次排序键：先是威胁着法（成五、挡五、双威胁、冲四、活三以及对方对应的防守点），
+ * 再按杀手着法、历史表、静态位置分排列安静着法。评分始终站在当前行棋方的角度。
+ * 双方在所有候选点上的棋形由 {@link ShapeKernel} 成批算出。
+ * 己方有五连点时只生成该点；对方有五连点时只生成挡点，其余着法都会直接输掉。
+ * 黑棋不生成禁手点：棋形中有长连或两个以上冲四/活三的点才交给 {@link RenjuRules} 精确判定。
+ */
+final class MoveGenerator {
+
+    // 非根节点在威胁着法之外保留的安静着法数量
+    static final int QUIET_LIMIT = 20;
+
+    // 排序键分段：强制挡点 > 置换表着法 > 威胁着法 > 杀手着法 > 历史表 > 静态位置分
+    private static final long FORCED_KEY = Long.MAX_VALUE;
+    private static final long HASH_KEY = Long.MAX_VALUE - 1;
+    private static final int THREAT_SHIFT = 44;
+    private static final int KILLER_SHIFT = 40;
+    private static final int HISTORY_SHIFT = 20;
+    private static final int FIELD_MAX = (1 << 20) - 1;
+
+    // 棋形统计的位编码：五连数 | 冲四数 << 4 | 活三数 << 8 | 黑棋长连数 << 12
+    private static final int FOURS_SHIFT = 4;
+    private static final int THREES_SHIFT = 8;
+    private static final int OVERLINE_SHIFT = 12;
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * 为行棋方生成排好序的着法，写入上下文第ply层的缓冲区并返回数量
+     *
+     * @param hashCell   置换表中的最佳着法，没有时为-1
+     * @param quietLimit 威胁着法之外最多保留的安静着法数量
+     */
+    static int generate(SearchContext context, int stone, int ply, int hashCell, int quietLimit) {
+        Board board = context.getBoard();
+        int[] moves = context.moveBuffer(ply);
+        long[] keys = context.keyBuffer(ply);
+        int opponent = 3 - stone;
+        int killer0 = context.killer(ply, 0);
+        int killer1 = context.killer(ply, 1);
+
+        int candidates = 0;
+        for (int cell = board.nextCandidate(0); cell >= 0; cell = board.nextCandidate(cell + 1)) {
+            moves[candidates++] = cell;
+        }
+        int[] ownShapes = context.ownShapes();
+        int[] opponentShapes = context.opponentShapes();
+        ShapeKernel kernel = context.getShapeKernel();
+        kernel.shapes(board, stone, moves, candidates, ownShapes);
+        kernel.shapes(board, opponent, moves, candidates, opponentShapes);
+
+        int count = 0;
+        boolean forced = false;
+        for (int i = 0; i < candidates; i++) {
+            int cell = moves[i];
+            int own = ownShapes[i];
+            if ((own & 0xF) != 0) {
+                // 直接成五，其他着法都不需要看
+                moves[0] = cell;
+                return 1;
+            }
+            if (stone == Board.BLACK && mayBeForbidden(own) && RenjuRules.isForbidden(board, cell)) {
+                continue;
+            }
+            int opp = opponentShapes[i];
+
+            long key;
+            if ((opp & 0xF) != 0) {
+                key = FORCED_KEY;
+                forced = true;
+            } else if (cell == hashCell) {
+                key = HASH_KEY;
+            } else {
+                int threat = threatScore(own, opp);
+                if (threat > 0) {
+                    key = (long) threat << THREAT_SHIFT;
+                } else {
+                    int killer = cell == killer0 ? 2 : cell == killer1 ? 1 : 0;
+                    int positional = evaluatePosition(board, cell, stone) + evaluatePosition(board, cell, opponent);
+                    key = ((long) killer << KILLER_SHIFT)
+                            | ((long) Math.min(context.historyScore(stone, cell), FIELD_MAX) << HISTORY_SHIFT)
+                            | Math.min(positional, FIELD_MAX);
+                }
+            }
+            moves[count] = cell;
+            keys[count] = key;
+            count++;
+        }
+
+        if (count == 0) {
+            moves[0] = Board.index(Board.BOARD_SIZE / 2, Board.BOARD_SIZE / 2);
+            return board.isEmptyCell(moves[0]) ? 1 : 0;
+        }
+
+        sort(moves, keys, count);
+
+        int threats = 0;
+        while (threats < count && keys[threats] >= 1L << THREAT_SHIFT) {
+            threats++;
+        }
+        if (forced) {
+            int blocks = 0;
+            while (blocks < count && keys[blocks] == FORCED_KEY) {
+                blocks++;
+            }
+            return blocks;
+        }
+        return (int) Math.min(count, (long) threats + quietLimit);
+    }
+
+    /**
+     * 排序键是否属于安静着法（非威胁、非置换表着法），只有安静着法才更新杀手表和历史表
+     */
+    static boolean isQuiet(long key) {
+        return key < 1L << THREAT_SHIFT;
+    }
+
+    /**
+     * 按排序键降序插入排序，候选着法通常只有几十个
+     */
+    private static void sort(int[] moves, long[] keys, int count) {
+        for (int i = 1; i < count; i++) {
+            long key = keys[i];
+            int move = moves[i];
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                keys[j + 1] = keys[j];
+                moves[j + 1] = moves[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            moves[j + 1] = move;
+        }
+    }
+
+    /**
+     * 棋形统计是禁手判定的必要条件：棋形表的冲四、活三都比连珠规则的定义宽，
+     * 黑棋的三三、四四在这里一定表现为冲四与活三合计两个以上
+     */
+    private static boolean mayBeForbidden(int shape) {
+        return (shape >>> OVERLINE_SHIFT) != 0
+                || ((shape >>> FOURS_SHIFT) & 0xF) + ((shape >>> THREES_SHIFT) & 0xF) >= 2;
+    }
+
+    /**
+     * 威胁分：双威胁 > 冲四 > 活三 > 挡对方的冲四/活三
+     */
+    private static int threatScore(int own, int opp) {
+        int ownFours = (own >>> FOURS_SHIFT) & 0xF;
+        int ownThrees = (own >>> THREES_SHIFT) & 0xF;
+        int oppFours = (opp >>> FOURS_SHIFT) & 0xF;
+        int oppThrees = (opp >>> THREES_SHIFT) & 0xF;
+
+        int score = ownFours * 200 + ownThrees * 100 + oppFours * 60 + oppThrees * 50;
+        if (ownFours >= 2 || (ownFours > 0 && ownThrees > 0) || ownThrees >= 2) {
+            score += 2000;
+        }
+        if (oppFours >= 2 || (oppFours > 0 && oppThrees > 0) || oppThrees >= 2) {
+            score += 1000;
+        }
+        return score;
+    }
+
+    /**
+     * 评估某方在空点落子的位置分数（四个方向之和）
+     */
+    static int evaluatePosition(Board board, int cell, int stone) {
+        int score = 0;
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            score += evaluateDirection(board, cell, d, stone);
+        }
+        return score;
+    }
+
+    /**
+     * 评估指定方向的分数
+     */
+    private static int evaluateDirection(Board board, int cell, int direction, int stone) {
+        int line = Board.lineOf(direction, cell);
+        int bit = Board.bitOf(direction, cell);
+        int own = board.getLine(stone, line) | (1 << bit);
+        int opponent = board.getLine(3 - stone, line);
+
+        // 从线掩码中直接取出正向、反向的连子长度（均含当前位置）
+        int forward = Integer.numberOfTrailingZeros(~(own >>> bit));
+        int backward = Integer.numberOfLeadingZeros(~(own << (31 - bit)));
+        int count = forward + backward - 1;
+
+        // 连子外侧若是对方棋子则被阻挡，棋盘外视为开放
+        boolean openEnd = (opponent & (1 << (bit + forward))) == 0;
+        int start = bit - backward;
+        boolean openStart = start < 0 || (opponent & (1 << start)) == 0;
+
+        // 根据连子数和开放情况返回分数
+        if (count >= 5) {
+            return 100000; // 五连
+        } else if (count == 4) {
+            if (openStart && openEnd) return 10000; // 活四
+            else if (openStart || openEnd) return 5000; // 冲四
+            else return 500; // 死四
+        } else if (count == 3) {
+            if (openStart && openEnd) return 1000; // 活三
+            else if (openStart || openEnd) return 200; // 眠三
+            else return 50; // 死三
+        } else if (count == 2) {
+            if (openStart && openEnd) return 100; // 活二
+            else if (openStart || openEnd) return 20; // 眠二
+            else return 5; // 死二
+        } else {
+            // 对于单子，检查是否形成开放局面
+            if (openStart && openEnd) return 10;
+            else return 5;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+/**
+ * 开局库
+ *
+ * 以规范哈希（8种对称局面归一）为键，启动时从二进制资源加载，命中时不需要任何搜索。
+ * 资源格式（大端）：
+ * <pre>
+ * int   魔数 'GMKB'
+ * short 版本号 1
+ * int   条目数
+ * 每个条目：byte 步数n，n个byte的落子格子（黑先交替），byte 应手数m，m个byte的应手格子
+ * </pre>
+ * 格子编号为 x * 15 + y。加载时逐步回放落子，把应手换算到规范坐标下存储；
+ * 查询时再用当前局面的规范变换的逆变换换算回来。
+ * 资源由 {@code com.gomoku.tournament.OpeningBookGenerator} 生成（mvn -Pbook），修改引擎后可重新生成。
+ */
+@Component
+@Slf4j
+public class OpeningBook {
+
+    private static final int MAGIC = 0x474D4B42; // "GMKB"
+    private static final int VERSION = 1;
+
+    // 规范哈希 -> 规范坐标下的应手
+    private final Map<Long, int[]> entries = new HashMap<>();
+
+    // 库中最深局面的步数，超过后直接跳过查询
+    private int maxPly = -1;
+
+    public OpeningBook(AIProperties aiProperties) {
+        AIProperties.Book config = aiProperties.getBook();
+        if (!config.isEnabled()) {
+            return;
+        }
+        ClassPathResource resource = new ClassPathResource(config.getResource());
+        if (!resource.exists()) {
+            log.warn("开局库资源不存在: {}", config.getResource());
+            return;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            load(in);
+            log.info("开局库已加载: positions={}, maxPly={}", entries.size(), maxPly);
+        } catch (IOException | RuntimeException e) {
+            entries.clear();
+            maxPly = -1;
+            log.error("开局库加载失败，已禁用: {}", config.getResource(), e);
+        }
+    }
+
+    private void load(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+            throw new IOException("开局库格式不正确");
+        }
+
+        int count = in.readInt();
+        Board board = new Board();
+        for (int i = 0; i < count; i++) {
+            board.reset();
+            int plies = in.readUnsignedByte();
+            for (int ply = 0; ply < plies; ply++) {
+                int cell = in.readUnsignedByte();
+                PieceColor color = ply % 2 == 0 ? PieceColor.BLACK : PieceColor.WHITE;
+                if (!board.placeStone(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, color)) {
+                    throw new IOException("开局库第" + i + "条包含非法落子");
+                }
+            }
+
+            int symmetry = board.canonicalSymmetry();
+            long key = board.symmetryHash(symmetry);
+            int replyCount = in.readUnsignedByte();
+            int[] replies = new int[replyCount];
+            for (int r = 0; r < replyCount; r++) {
+                int cell = in.readUnsignedByte();
+                if (cell >= Board.CELL_COUNT || !board.isEmptyCell(cell)) {
+                    throw new IOException("开局库第" + i + "条包含非法应手");
+                }
+                replies[r] = Board.transform(symmetry, cell);
+            }
+
+            // 对称的局面可能在库中出现多次，应手合并
+            entries.merge(key, replies, OpeningBook::mergeReplies);
+            maxPly = Math.max(maxPly, plies);
+        }
+    }
+
+    private static int[] mergeReplies(int[] existing, int[] added) {
+        return IntStream.concat(Arrays.stream(existing), Arrays.stream(added)).distinct().toArray();
+    }
+
+    /**
+     * 查询开局库，命中时返回应手的格子编号（有多个应手时随机选一个），未命中返回-1
+     */
+    public int probe(Board board) {
+        if (board.getMoveCount() > maxPly) {
+            return -1;
+        }
+        int symmetry = board.canonicalSymmetry();
+        int[] replies = entries.get(board.symmetryHash(symmetry));
+        if (replies == null || replies.length == 0) {
+            return -1;
+        }
+        int reply = replies[replies.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(replies.length)];
+        int cell = Board.inverseTransform(symmetry, reply);
+        // 防御哈希碰撞
+        return board.isEmptyCell(cell) ? cell : -1;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
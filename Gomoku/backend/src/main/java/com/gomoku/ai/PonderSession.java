@@ -0,0 +1,91 @@
+package com.gomoku.ai;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一次后台思考（在对方思考期间预先搜索）
+ *
+ * AI落子后先预测对方的应手，在"AI落子 + 预测应手"的局面上用困难难度的搜索继续思考。
+ * 对方真正落子时停止；若实际局面与预测一致，置换表已经被预热，
+ * 思考过的时间计入本步预算，甚至可以直接采用已有结果。
+ */
+class PonderSession {
+
+    // 预测应手之后的局面哈希，用来判断是否猜中
+    private final long hash;
+
+    private final AtomicBoolean stopSignal = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private volatile AIEngine.Position move;
+    private volatile long elapsed;
+    private volatile boolean completed;
+
+    PonderSession(long hash) {
+        this.hash = hash;
+    }
+
+    long getHash() {
+        return hash;
+    }
+
+    AtomicBoolean getStopSignal() {
+        return stopSignal;
+    }
+
+    /**
+     * 后台搜索结束时调用
+     *
+     * @param elapsed   实际搜索时间（纳秒）
+     * @param completed 搜索是按自身规则结束的，而不是被停止的
+     */
+    void finish(AIEngine.Position move, long elapsed, boolean completed) {
+        this.move = move;
+        this.elapsed = elapsed;
+        this.completed = completed;
+        done.countDown();
+    }
+
+    /**
+     * 提交失败或搜索异常时调用，视为没有任何结果
+     */
+    void abandon() {
+        done.countDown();
+    }
+
+    /**
+     * 停止后台搜索（不等待）
+     */
+    void stop() {
+        stopSignal.set(true);
+    }
+
+    /**
+     * 停止后台搜索并等待它退出；搜索每1024个节点检查一次停止信号，通常几毫秒内就会返回
+     *
+     * @return 在超时时间内退出时返回true
+     */
+    boolean stopAndAwait(long timeoutMs) {
+        stop();
+        try {
+            return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    AIEngine.Position getMove() {
+        return move;
+    }
+
+    long getElapsed() {
+        return elapsed;
+    }
+
+    boolean isCompleted() {
+        return completed;
+    }
+}
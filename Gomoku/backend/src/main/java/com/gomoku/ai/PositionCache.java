@@ -0,0 +1,156 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.AIDifficulty;
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 跨对局的AI应手缓存
+ *
+ * 很多人机对局会经过相同的开局和中盘局面，命中时不需要再搜索。
+ * 键为（规范哈希、行棋方、难度），8种对称局面共用一个条目；应手换算到规范坐标下存储，
+ * 查询时再用当前局面的规范变换的逆变换换算回来。容量固定，按最近最少使用淘汰。
+ * 每次查询都要更新访问顺序，整张表一把锁会让所有对局的AI查询排队，
+ * 因此按键分成若干段，每段是一张带锁的LRU表，容量均分，不同段的查询互不阻塞；淘汰在段内按LRU进行。
+ *
+ * 只缓存配置中列出的难度（默认困难、专家）。简单难度的应手本身是随机的，不经过缓存，
+ * 同一局面仍会走出不同的棋。
+ */
+@Component
+public class PositionCache {
+
+    // 分段数为 2^SEGMENT_BITS
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+
+    private final boolean enabled;
+    private final Set<AIDifficulty> difficulties;
+    private final Segment[] segments = new Segment[SEGMENT_COUNT];
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public PositionCache(AIProperties aiProperties) {
+        AIProperties.Cache config = aiProperties.getCache();
+        int capacity = config.getMaxEntries();
+        this.enabled = config.isEnabled() && capacity > 0;
+        this.difficulties = config.getDifficulties();
+        int segmentCapacity = Math.max((capacity + SEGMENT_COUNT - 1) / SEGMENT_COUNT, 1);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * 该难度是否使用缓存
+     */
+    public boolean isCacheable(AIDifficulty difficulty) {
+        return enabled && difficulties.contains(difficulty);
+    }
+
+    /**
+     * 查询缓存，命中时返回应手的格子编号，未命中返回-1
+     */
+    public int probe(Board board, PieceColor side, AIDifficulty difficulty) {
+        if (!isCacheable(difficulty)) {
+            return -1;
+        }
+        int symmetry = board.canonicalSymmetry();
+        Key key = new Key(board.symmetryHash(symmetry), side, difficulty);
+        Segment segment = segmentOf(key);
+        Integer reply;
+        synchronized (segment) {
+            reply = segment.get(key);
+        }
+        if (reply == null) {
+            missCount.incrementAndGet();
+            return -1;
+        }
+        int cell = Board.inverseTransform(symmetry, reply);
+        // 防御哈希碰撞
+        if (!board.isEmptyCell(cell)) {
+            missCount.incrementAndGet();
+            return -1;
+        }
+        hitCount.incrementAndGet();
+        return cell;
+    }
+
+    /**
+     * 记录搜索得到的应手
+     */
+    public void store(Board board, PieceColor side, AIDifficulty difficulty, int cell) {
+        if (!isCacheable(difficulty)) {
+            return;
+        }
+        int symmetry = board.canonicalSymmetry();
+        Key key = new Key(board.symmetryHash(symmetry), side, difficulty);
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, Board.transform(symmetry, cell));
+        }
+    }
+
+    private Segment segmentOf(Key key) {
+        // 规范哈希取8种对称中最小的一个，高位偏向0，先乘以黄金分割常数打散再取高位
+        return segments[(int) ((key.hash() * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * 一段按访问顺序排列的LRU表，只在持有自身锁时访问
+     */
+    private final class Segment extends LinkedHashMap<Key, Integer> {
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(Math.min(capacity, 1024), 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+            if (size() > capacity) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 缓存键：规范哈希 + 行棋方 + 难度
+     */
+    private record Key(long hash, PieceColor side, AIDifficulty difficulty) {
+    }
+}
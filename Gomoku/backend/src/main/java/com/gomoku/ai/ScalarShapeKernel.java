@@ -0,0 +1,122 @@
+package com.gomoku.ai;
+
+import com.gomoku.game.Board;
+
+/**
+ * 标量实现：每个方向取出以该点为中心的9格窗口，查预先算好的棋形表
+ *
+ * 冲四、活三用到的窗口都在中心左右4格之内，因此9格窗口（中心必为己方）
+ * 里己方8位与阻挡8位组成的16位编码就能唯一确定该方向的棋形。
+ * 表按"连五及以上都算五连"生成；黑棋长连不算五连，表中出现五连时再按整条线重新判断。
+ */
+final class ScalarShapeKernel implements ShapeKernel {
+
+    static final ScalarShapeKernel INSTANCE = new ScalarShapeKernel();
+
+    // 五连数 | 冲四数 << 4 | 活三数 << 8 | 黑棋长连数 << 12（单个方向）
+    static final int FOURS_SHIFT = 4;
+    static final int THREES_SHIFT = 8;
+    static final int OVERLINE_SHIFT = 12;
+
+    // 窗口棋形表，下标见 patternIndex
+    static final int[] PATTERN = new int[1 << 16];
+
+    static {
+        for (int index = 0; index < PATTERN.length; index++) {
+            int own = expand(index & 0xFF) | 1 << 4;
+            int blocked = expand(index >>> 8);
+            if ((own & blocked) == 0) {
+                PATTERN[index] = directionShape(own, blocked, 4, Board.WHITE);
+            }
+        }
+    }
+
+    private ScalarShapeKernel() {
+    }
+
+    /**
+     * 8位（不含中心）展开为9格窗口，中心位留空
+     */
+    private static int expand(int bits) {
+        return (bits & 0xF) | (bits >>> 4) << 5;
+    }
+
+    /**
+     * 由整条线的己方/阻挡掩码取出以bit为中心的窗口编码；线外（含位序为负的部分）视为阻挡
+     */
+    static int patternIndex(int own, int blocked, int bit) {
+        int ownWindow = ((own << 4) >>> bit) & 0x1FF;
+        int blockedWindow = (((blocked << 4) | 0xF) >>> bit) & 0x1FF;
+        return (ownWindow & 0xF) | (ownWindow >>> 5) << 4
+                | (blockedWindow & 0xF) << 8 | (blockedWindow >>> 5) << 12;
+    }
+
+    @Override
+    public void shapes(Board board, int stone, int[] cells, int count, int[] out) {
+        for (int i = 0; i < count; i++) {
+            out[i] = shape(board, cells[i], stone);
+        }
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    /**
+     * 假设在空点落下某方棋子，统计四个方向上形成的五连、冲四（含活四）、活三
+     */
+    static int shape(Board board, int cell, int stone) {
+        int result = 0;
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            int line = Board.lineOf(d, cell);
+            int bit = Board.bitOf(d, cell);
+            int own = board.getLine(stone, line);
+            int blocked = board.getLine(3 - stone, line) | ~Board.lineMask(line);
+            int entry = PATTERN[patternIndex(own, blocked, bit)];
+            if ((entry & 0xF) != 0 && stone == Board.BLACK) {
+                entry = directionShape(own | 1 << bit, blocked, bit, stone);
+            }
+            result += entry;
+        }
+        return result;
+    }
+
+    /**
+     * 单个方向的棋形：五连优先，其次冲四（两个不同的五连点即活四，记为2），最后活三；黑棋长连只记长连
+     *
+     * @param own 已包含该点的己方掩码
+     */
+    static int directionShape(int own, int blocked, int bit, int stone) {
+        int run = Board.runLength(own, bit);
+        if (stone == Board.BLACK ? run == 5 : run >= 5) {
+            return 1;
+        }
+        if (run > 5) {
+            return 1 << OVERLINE_SHIFT;
+        }
+
+        // 冲四：包含该点、没有阻挡且恰有4子的5格窗口
+        int fivePoints = 0;
+        for (int start = Math.max(0, bit - 4); start <= bit; start++) {
+            int window = 0b11111 << start;
+            if ((blocked & window) == 0 && Integer.bitCount(own & window) == 4) {
+                fivePoints |= window & ~own;
+            }
+        }
+        if (fivePoints != 0) {
+            return (Integer.bitCount(fivePoints) >= 2 ? 2 : 1) << FOURS_SHIFT;
+        }
+
+        // 活三：两端为空、中间4格恰有3子的6格窗口
+        for (int start = Math.max(0, bit - 4); start <= bit - 1; start++) {
+            int window = 0b111111 << start;
+            int edges = (1 << start) | (1 << (start + 5));
+            if ((blocked & window) == 0 && (own & edges) == 0
+                    && Integer.bitCount(own & window) == 3) {
+                return 1 << THREES_SHIFT;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,159 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单次搜索的上下文
+ *
+ * AIEngine 是单例，随搜索变化的状态（棋盘副本、增量评估器、截止时间、节点计数、中断标记）
+ * 全部放在这里，每次调用新建一份，多个对局的搜索可以在不同线程上并行执行。
+ * 并行搜索时主线程和每个辅助线程各有一份上下文，通过共享的停止信号一起结束
+ */
+@Getter
+class SearchContext {
+
+    // 每搜索1024个节点才读取一次时钟
+    private static final long TIME_CHECK_MASK = 1023;
+
+    // 搜索的最大层数，迭代加深的深度不会超过它
+    static final int MAX_PLY = 32;
+
+    private final Board board;
+    private final IncrementalEvaluator evaluator;
+    private final long startTime;
+    private final long timeLimit;
+    private final long deadline;
+    private final long nodeLimit;
+    private final AtomicBoolean stopSignal;
+    private final int helperIndex;
+
+    private long nodes;
+    private boolean aborted;
+
+    // 候选点棋形评估内核，以及着法生成时双方棋形的缓冲区（用完即弃，各层共用）
+    private final ShapeKernel shapeKernel = ShapeKernel.create();
+    @Getter(AccessLevel.NONE)
+    private final int[] ownShapes = new int[Board.CELL_COUNT];
+    @Getter(AccessLevel.NONE)
+    private final int[] opponentShapes = new int[Board.CELL_COUNT];
+
+    // 每层的着法与排序键缓冲区，避免在节点内分配对象
+    @Getter(AccessLevel.NONE)
+    private final int[][] moveBuffers = new int[MAX_PLY][Board.CELL_COUNT];
+    @Getter(AccessLevel.NONE)
+    private final long[][] keyBuffers = new long[MAX_PLY][Board.CELL_COUNT];
+
+    // 杀手着法：每层最近两个引起剪枝的安静着法
+    @Getter(AccessLevel.NONE)
+    private final int[][] killers = new int[MAX_PLY][2];
+
+    // 历史表：按颜色和格子累计引起剪枝的次数（按深度平方加权）
+    @Getter(AccessLevel.NONE)
+    private final int[][] history = new int[2][Board.CELL_COUNT];
+
+    SearchContext(Board board, AIProperties.SearchBudget budget) {
+        this(board, budget, null, 0);
+    }
+
+    /**
+     * @param stopSignal  共享停止信号，为null表示单线程搜索
+     * @param helperIndex 0为主线程，大于0为辅助线程编号
+     */
+    SearchContext(Board board, AIProperties.SearchBudget budget, AtomicBoolean stopSignal, int helperIndex) {
+        this.board = board;
+        this.evaluator = new IncrementalEvaluator(board);
+        this.startTime = System.nanoTime();
+        this.timeLimit = budget.getTimeLimitMs() * 1_000_000L;
+        this.deadline = startTime + timeLimit;
+        this.nodeLimit = budget.getNodeLimit();
+        this.stopSignal = stopSignal;
+        this.helperIndex = helperIndex;
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, -1);
+        }
+    }
+
+    /**
+     * 落子并同步更新评估器
+     */
+    void makeMove(int x, int y, PieceColor color) {
+        board.placeStone(x, y, color);
+        evaluator.update(Board.index(x, y));
+    }
+
+    /**
+     * 撤销最近一次落子并同步更新评估器
+     */
+    void undoMove() {
+        int cell = board.getLastMove();
+        board.undoStone();
+        evaluator.update(cell);
+    }
+
+    /**
+     * 统计节点并检查预算，超出后标记本次搜索已中断
+     */
+    boolean isBudgetExhausted() {
+        if (aborted) {
+            return true;
+        }
+        nodes++;
+        if (nodeLimit > 0 && nodes >= nodeLimit) {
+            aborted = true;
+        } else if ((nodes & TIME_CHECK_MASK) == 0
+                && (System.nanoTime() - deadline > 0 || (stopSignal != null && stopSignal.get()))) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    int[] moveBuffer(int ply) {
+        return moveBuffers[ply];
+    }
+
+    long[] keyBuffer(int ply) {
+        return keyBuffers[ply];
+    }
+
+    int[] ownShapes() {
+        return ownShapes;
+    }
+
+    int[] opponentShapes() {
+        return opponentShapes;
+    }
+
+    int killer(int ply, int slot) {
+        return killers[ply][slot];
+    }
+
+    int historyScore(int stone, int cell) {
+        return history[stone - 1][cell];
+    }
+
+    /**
+     * 安静着法引起剪枝时，记入杀手表和历史表
+     */
+    void recordCutoff(int stone, int cell, int depth, int ply) {
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != cell) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = cell;
+        }
+        history[stone - 1][cell] += depth * depth;
+    }
+
+    /**
+     * 已用时间（纳秒）
+     */
+    long elapsed() {
+        return System.nanoTime() - startTime;
+    }
+}
@@ -0,0 +1,77 @@
+package com.gomoku.ai;
+
+import com.gomoku.config.AIProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lazy SMP 辅助线程池
+ *
+ * 使用 SynchronousQueue：只有存在空闲线程时辅助搜索才能提交成功，不会排队等待。
+ * 同时使用辅助线程的搜索数达到上限后，新的搜索直接退化为单线程，
+ * 这样高峰期每局都能拿到稳定的单核时间，低峰期空闲核心则用来加深搜索。
+ */
+@Slf4j
+class SearchThreadPool {
+
+    private final ThreadPoolExecutor executor;
+    private final int maxHelpersPerSearch;
+    private final int maxParallelSearches;
+    private final AtomicInteger parallelSearches = new AtomicInteger();
+
+    SearchThreadPool(AIProperties.Parallel parallel) {
+        int threads = parallel.resolveThreads();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ai-search-helper-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.prestartAllCoreThreads();
+        this.maxHelpersPerSearch = Math.max(0, parallel.getMaxThreadsPerSearch() - 1);
+        this.maxParallelSearches = parallel.getMaxParallelSearches();
+        log.info("AI并行搜索线程池已启动: threads={}, maxThreadsPerSearch={}, maxParallelSearches={}",
+                threads, parallel.getMaxThreadsPerSearch(), maxParallelSearches);
+    }
+
+    /**
+     * 申请本次搜索可用的辅助线程数，返回0表示应使用单线程搜索；
+     * 返回值大于0时，搜索结束后必须调用 {@link #release()}
+     */
+    int acquire() {
+        if (maxHelpersPerSearch == 0) {
+            return 0;
+        }
+        if (parallelSearches.incrementAndGet() > maxParallelSearches) {
+            parallelSearches.decrementAndGet();
+            return 0;
+        }
+        return maxHelpersPerSearch;
+    }
+
+    void release() {
+        parallelSearches.decrementAndGet();
+    }
+
+    /**
+     * 尝试在空闲线程上运行辅助搜索，没有空闲线程时返回false
+     */
+    boolean trySubmit(Runnable task) {
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
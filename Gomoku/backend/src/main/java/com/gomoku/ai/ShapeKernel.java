@@ -0,0 +1,61 @@
+package com.gomoku.ai;
+
+import com.gomoku.game.Board;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 候选点棋形评估内核
+ *
+ * 一次为一批空点计算某方落子后四个方向的棋形（五连、冲四、活三），
+ * 是着法生成的最内层循环，所有难度都会用到。编码与 {@link MoveGenerator} 一致：
+ * 五连数 | 冲四数 << 4 | 活三数 << 8。
+ *
+ * 启动时选择实现：运行时加载了 jdk.incubator.vector 模块且CPU有可用的SIMD指令时使用向量实现，
+ * 否则使用标量实现。可以用 -Dgomoku.ai.vector=false 强制使用标量实现。
+ */
+interface ShapeKernel {
+
+    /**
+     * 为 cells 中前 count 个空点计算 stone 一方落子后的棋形编码，写入 out
+     */
+    void shapes(Board board, int stone, int[] cells, int count, int[] out);
+
+    /**
+     * 实现名称，用于日志
+     */
+    String name();
+
+    /**
+     * 为一次搜索创建内核；向量实现带有gather用的缓冲区，不能跨线程共享
+     */
+    static ShapeKernel create() {
+        return Selector.VECTOR_AVAILABLE ? new VectorShapeKernel() : ScalarShapeKernel.INSTANCE;
+    }
+
+    @Slf4j
+    final class Selector {
+
+        static final boolean VECTOR_AVAILABLE = detect();
+
+        private Selector() {
+        }
+
+        private static boolean detect() {
+            if (!Boolean.parseBoolean(System.getProperty("gomoku.ai.vector", "true"))
+                    || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                log.info("棋形评估内核: {}", ScalarShapeKernel.INSTANCE.name());
+                return false;
+            }
+            try {
+                // 先通过反射加载，未加载向量模块或没有SIMD支持时不会在调用处触发类加载错误
+                ShapeKernel kernel = (ShapeKernel) Class.forName("com.gomoku.ai.VectorShapeKernel")
+                        .getDeclaredConstructor().newInstance();
+                log.info("棋形评估内核: {}", kernel.name());
+                return true;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.info("向量棋形评估内核不可用，使用标量实现: {}", e.toString());
+                return false;
+            }
+        }
+    }
+}
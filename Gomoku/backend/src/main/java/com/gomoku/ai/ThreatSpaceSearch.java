@@ -0,0 +1,355 @@
+package com.gomoku.ai;
+
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import com.gomoku.game.RenjuRules;
+
+import java.util.Arrays;
+
+/**
+ * 威胁空间搜索 - VCF（连续冲四取胜）与 VCT（连续冲四/活三取胜）求解器
+ *
+ * 进攻方只走冲四（VCT 还允许活三），防守方只考虑化解威胁的着法，
+ * 分支因子很小，因此能在主搜索之前以极低的代价证明必胜或必败。
+ * 黑棋不能走禁手：黑方进攻时跳过禁手点，黑方防守时禁手点不算有效的防守。
+ * 搜索直接在传入的棋盘上落子/撤销，返回前棋盘恢复原状。
+ */
+public class ThreatSpaceSearch {
+
+    /**
+     * 未找到：在给定步数内已证明不存在
+     */
+    public static final int NOT_FOUND = -1;
+
+    /**
+     * 未找到：节点预算或搜索深度用完，没有搜完，是否存在未知
+     */
+    public static final int UNKNOWN = -2;
+
+    private static final int MAX_PLY = 64;
+
+    // 失败局面缓存（直接映射），避免同一局面经不同顺序到达时重复证明；
+    // 同时记下证明失败时的剩余步数，剩余步数更多时不能沿用，要重新搜索
+    private static final int FAILURE_CACHE_BITS = 12;
+
+    private final Board board;
+    private final long nodeLimit;
+    private final int[][] moveBuffers = new int[MAX_PLY][Board.CELL_COUNT];
+    private final long[] seen = new long[4];
+    private final long[] failureCache = new long[1 << FAILURE_CACHE_BITS];
+    private final byte[] failureDepths = new byte[1 << FAILURE_CACHE_BITS];
+
+    private long nodes;
+    // 本次求解是否因预算或深度上限截断过搜索
+    private boolean truncated;
+
+    public ThreatSpaceSearch(Board board, long nodeLimit) {
+        this.board = board;
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * 寻找VCF，返回第一步的格子编号；证明不存在时返回 {@link #NOT_FOUND}，没有搜完时返回 {@link #UNKNOWN}
+     */
+    public int findVcf(int attacker, int maxDepth) {
+        return solve(attacker, maxDepth, false);
+    }
+
+    /**
+     * 寻找VCT，返回值同 {@link #findVcf(int, int)}
+     */
+    public int findVct(int attacker, int maxDepth) {
+        return solve(attacker, maxDepth, true);
+    }
+
+    private int solve(int attacker, int maxDepth, boolean allowThrees) {
+        nodes = 0;
+        truncated = false;
+        Arrays.fill(failureCache, 0L);
+        int move = findAttack(attacker, maxDepth, allowThrees, 0);
+        if (move < 0 && (truncated || nodes >= nodeLimit)) {
+            return UNKNOWN;
+        }
+        return move;
+    }
+
+    /**
+     * 轮到进攻方走时寻找取胜的第一步，找不到返回-1
+     */
+    private int findAttack(int attacker, int depth, boolean allowThrees, int ply) {
+        int[] moves = moveBuffers[ply];
+
+        // 自己已有五连点时直接取胜
+        clearSeen();
+        if (scanWindows(attacker, 4, moves, 0, false) > 0) {
+            return moves[0];
+        }
+
+        int count;
+        int defenderFives = collectFivePoints(3 - attacker, moves);
+        if (defenderFives >= 2) {
+            return -1;
+        }
+        if (defenderFives == 1) {
+            // 必须先挡住对方的五连点，并且这一步本身要构成威胁
+            count = 1;
+        } else {
+            count = generateAttacks(attacker, allowThrees, moves);
+        }
+        for (int i = 0; i < count; i++) {
+            int cell = moves[i];
+            if (tryAttack(attacker, cell, depth, allowThrees, ply + 1)) {
+                return cell;
+            }
+            if (nodes >= nodeLimit) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 进攻方落子后，判断能否强制取胜
+     */
+    private boolean tryAttack(int attacker, int cell, int depth, boolean allowThrees, int ply) {
+        nodes++;
+        if (attacker == Board.BLACK && RenjuRules.isForbidden(board, cell)) {
+            return false;
+        }
+        int defender = 3 - attacker;
+        place(cell, attacker);
+        try {
+            if (isWin(cell, attacker)) {
+                return true;
+            }
+
+            int[] replies = moveBuffers[ply];
+            int fives = collectFivePointsThrough(cell, attacker, replies);
+            if (fives >= 2) {
+                // 双冲四或活四：防守方只能挡住一个点
+                return true;
+            }
+            if (fives == 0) {
+                if (!allowThrees || depth <= 1) {
+                    return false;
+                }
+                // 活三：防守方可以在棋形的空点防守，也可以用冲四反击
+                int count = collectThreeDefences(cell, attacker, replies);
+                if (count == 0) {
+                    return false;
+                }
+                count = appendFourMoves(defender, replies, count);
+                for (int i = 0; i < count; i++) {
+                    if (!defend(attacker, replies[i], depth, true, ply)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return depth > 1 && defend(attacker, replies[0], depth, allowThrees, ply);
+        } finally {
+            board.undoStone();
+        }
+    }
+
+    /**
+     * 防守方落下指定应着后，判断进攻方是否仍能取胜
+     */
+    private boolean defend(int attacker, int reply, int depth, boolean allowThrees, int ply) {
+        if (nodes >= nodeLimit || ply + 2 >= MAX_PLY) {
+            truncated = true;
+            return false;
+        }
+        int defender = 3 - attacker;
+        if (defender == Board.BLACK && RenjuRules.isForbidden(board, reply)) {
+            return true;
+        }
+        place(reply, defender);
+        try {
+            if (isWin(reply, defender)) {
+                return false;
+            }
+
+            long hash = board.getHash();
+            int slot = (int) hash & (failureCache.length - 1);
+            if (failureCache[slot] == hash && failureDepths[slot] >= depth - 1) {
+                return false;
+            }
+
+            boolean truncatedBefore = truncated;
+            truncated = false;
+            boolean won = findAttack(attacker, depth - 1, allowThrees, ply + 1) >= 0;
+            boolean subtreeTruncated = truncated || nodes >= nodeLimit;
+            truncated |= truncatedBefore;
+            if (won) {
+                return true;
+            }
+            // 子树被截断时失败不算证明，不能缓存
+            if (!subtreeTruncated) {
+                failureCache[slot] = hash;
+                failureDepths[slot] = (byte) (depth - 1);
+            }
+            return false;
+        } finally {
+            board.undoStone();
+        }
+    }
+
+    /**
+     * 生成进攻着法：先冲四，VCT时再加上活三
+     */
+    private int generateAttacks(int stone, boolean allowThrees, int[] out) {
+        clearSeen();
+        int count = scanWindows(stone, 3, out, 0, false);
+        if (allowThrees) {
+            count = scanWindows(stone, 2, out, count, true);
+        }
+        return count;
+    }
+
+    /**
+     * 在已有着法列表后追加某方的冲四着法
+     */
+    private int appendFourMoves(int stone, int[] out, int count) {
+        clearSeen();
+        for (int i = 0; i < count; i++) {
+            markSeen(out[i]);
+        }
+        return scanWindows(stone, 3, out, count, false);
+    }
+
+    /**
+     * 收集某方所有的五连点
+     */
+    private int collectFivePoints(int stone, int[] out) {
+        clearSeen();
+        return scanWindows(stone, 4, out, 0, false);
+    }
+
+    /**
+     * 扫描所有线上的窗口：
+     * 普通模式找5格窗口中恰有 ownCount 个己方棋子、其余为空的窗口，收集其中的空点；
+     * 活三模式找两端为空、中间4格恰有 ownCount 个己方棋子的6格窗口，收集中间的空点
+     */
+    private int scanWindows(int stone, int ownCount, int[] out, int count, boolean openThree) {
+        int width = openThree ? 6 : 5;
+        int windowBits = (1 << width) - 1;
+        for (int line = 0; line < Board.LINE_COUNT; line++) {
+            int own = board.getLine(stone, line);
+            if (Integer.bitCount(own) < ownCount) {
+                continue;
+            }
+            int lineMask = Board.lineMask(line);
+            int blocked = board.getLine(3 - stone, line) | ~lineMask;
+            int low = Integer.numberOfTrailingZeros(lineMask);
+            int high = 31 - Integer.numberOfLeadingZeros(lineMask);
+            for (int start = low; start + width - 1 <= high; start++) {
+                int window = windowBits << start;
+                if ((blocked & window) != 0) {
+                    continue;
+                }
+                int inner = openThree ? window & ~(1 << start) & ~(1 << (start + 5)) : window;
+                if (openThree && (own & window & ~inner) != 0) {
+                    continue;
+                }
+                if (Integer.bitCount(own & inner) != ownCount) {
+                    continue;
+                }
+                int empties = inner & ~own;
+                while (empties != 0) {
+                    int bit = Integer.numberOfTrailingZeros(empties);
+                    empties &= empties - 1;
+                    int cell = Board.lineCell(line, bit);
+                    if (markSeen(cell) && (ownCount != 4 || isWin(cell, stone))) {
+                        out[count++] = cell;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 收集经过指定格子的四条线上，某方的五连点
+     */
+    private int collectFivePointsThrough(int cell, int stone, int[] out) {
+        clearSeen();
+        int count = 0;
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            int line = Board.lineOf(d, cell);
+            int bit = Board.bitOf(d, cell);
+            for (int offset = -4; offset <= 4; offset++) {
+                int target = Board.lineCell(line, bit + offset);
+                if (target < 0 || !board.isEmptyCell(target)) {
+                    continue;
+                }
+                if (markSeen(target) && isWin(target, stone)) {
+                    out[count++] = target;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 收集化解活三的防守点：经过该子、两端为空且中间有3子1空的6格窗口中的空点
+     */
+    private int collectThreeDefences(int cell, int stone, int[] out) {
+        clearSeen();
+        int count = 0;
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            int line = Board.lineOf(d, cell);
+            int bit = Board.bitOf(d, cell);
+            int own = board.getLine(stone, line);
+            int lineMask = Board.lineMask(line);
+            int blocked = board.getLine(3 - stone, line) | ~lineMask;
+            for (int start = bit - 4; start <= bit - 1; start++) {
+                if (start < 0 || start + 5 >= Board.BOARD_SIZE) {
+                    continue;
+                }
+                int window = 0b111111 << start;
+                int edges = (1 << start) | (1 << (start + 5));
+                if ((blocked & window) != 0 || (own & edges) != 0
+                        || Integer.bitCount(own & window) != 3) {
+                    continue;
+                }
+                int empties = window & ~own;
+                while (empties != 0) {
+                    int target = Board.lineCell(line, Integer.numberOfTrailingZeros(empties));
+                    empties &= empties - 1;
+                    if (markSeen(target)) {
+                        out[count++] = target;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    private boolean isWin(int cell, int stone) {
+        return RenjuRules.isWin(board, cell, stone);
+    }
+
+    private void place(int cell, int stone) {
+        board.placeStone(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE,
+                stone == Board.BLACK ? PieceColor.BLACK : PieceColor.WHITE);
+    }
+
+    private void clearSeen() {
+        seen[0] = seen[1] = seen[2] = seen[3] = 0L;
+    }
+
+    private boolean markSeen(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((seen[word] & bit) != 0) {
+            return false;
+        }
+        seen[word] |= bit;
+        return true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+}
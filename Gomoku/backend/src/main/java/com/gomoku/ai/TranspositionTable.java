@@ -0,0 +1,104 @@
+package com.gomoku.ai;
+
+import java.util.Arrays;
+
+/**
+ * 置换表 - 固定大小、无锁、基于原始数组
+ *
+ * 每个槽位由两个long组成：data 打包保存深度、边界类型、分数和最佳着法，
+ * key 保存 Zobrist 哈希与 data 的异或值。读取时重新异或校验，
+ * 并发写入造成的撕裂条目会因校验失败而被视为未命中，因此无需加锁。
+ */
+public class TranspositionTable {
+
+    /**
+     * 边界类型：精确值
+     */
+    public static final int EXACT = 1;
+
+    /**
+     * 边界类型：下界（发生了beta剪枝）
+     */
+    public static final int LOWER = 2;
+
+    /**
+     * 边界类型：上界（所有着法都没有超过alpha）
+     */
+    public static final int UPPER = 3;
+
+    // data布局：0-31位分数，32-39位深度，40-41位边界类型，42-49位最佳着法（格子编号+1，0表示无）
+    private static final int DEPTH_SHIFT = 32;
+    private static final int FLAG_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * @param sizeBits 槽位数量的二进制位数，容量为 2^sizeBits
+     */
+    public TranspositionTable(int sizeBits) {
+        int size = 1 << sizeBits;
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 查询置换表，未命中返回0
+     */
+    public long probe(long hash) {
+        int slot = (int) hash & mask;
+        long entry = data[slot];
+        if ((keys[slot] ^ entry) != hash) {
+            return 0L;
+        }
+        return entry;
+    }
+
+    /**
+     * 写入置换表：不同局面直接覆盖，同一局面只在深度不低于原条目时覆盖
+     */
+    public void store(long hash, int depth, int flag, int score, int bestCell) {
+        int slot = (int) hash & mask;
+        long existing = data[slot];
+        if ((keys[slot] ^ existing) == hash && depth(existing) > depth) {
+            return;
+        }
+
+        long entry = (score & 0xFFFFFFFFL)
+                | ((long) depth << DEPTH_SHIFT)
+                | ((long) flag << FLAG_SHIFT)
+                | ((long) (bestCell + 1) << MOVE_SHIFT);
+        data[slot] = entry;
+        keys[slot] = hash ^ entry;
+    }
+
+    /**
+     * 清空置换表
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int flag(long entry) {
+        return (int) (entry >>> FLAG_SHIFT) & 0x3;
+    }
+
+    /**
+     * 最佳着法的格子编号，无则返回-1
+     */
+    public static int bestCell(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & 0xFF) - 1;
+    }
+}
@@ -0,0 +1,102 @@
+package com.gomoku.ai;
+
+import com.gomoku.game.Board;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD实现：每个向量通道负责一个候选点，四个方向依次处理。
+ * 线编号、线掩码、棋形表都通过gather读取，窗口编码用向量移位算出，
+ * 与 {@link ScalarShapeKernel} 查的是同一张表，结果逐位一致。
+ *
+ * 只能通过 {@link ShapeKernel#create()} 使用，编译和运行都需要 --add-modules jdk.incubator.vector
+ */
+final class VectorShapeKernel implements ShapeKernel {
+
+    // 最多使用256位：候选点通常只有几十个，更宽的向量尾部浪费多，
+    // 且JDK 17的孵化版本在AVX-512上对gather的编译存在崩溃问题
+    private static final VectorSpecies<Integer> SPECIES =
+            IntVector.SPECIES_PREFERRED.vectorBitSize() > 256 ? IntVector.SPECIES_256 : IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // 按格子gather的线编号、位序表，以及按线gather的线外位（视为阻挡）
+    private static final int[][] LINE_OF = new int[Board.DIRECTION_COUNT][Board.CELL_COUNT];
+    private static final int[][] BIT_OF = new int[Board.DIRECTION_COUNT][Board.CELL_COUNT];
+    private static final int[] OUTSIDE = new int[Board.LINE_COUNT];
+
+    static {
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            for (int cell = 0; cell < Board.CELL_COUNT; cell++) {
+                LINE_OF[d][cell] = Board.lineOf(d, cell);
+                BIT_OF[d][cell] = Board.bitOf(d, cell);
+            }
+        }
+        for (int line = 0; line < Board.LINE_COUNT; line++) {
+            OUTSIDE[line] = ~Board.lineMask(line);
+        }
+    }
+
+    // gather只接受int[]形式的下标
+    private final int[] indexMap = new int[LANES];
+
+    VectorShapeKernel() {
+        // 128位以下说明没有可用的SIMD指令，向量API会退化为逐元素执行，比标量实现更慢
+        if (LANES < 4) {
+            throw new UnsupportedOperationException("向量宽度不足: " + SPECIES);
+        }
+    }
+
+    @Override
+    public void shapes(Board board, int stone, int[] cells, int count, int[] out) {
+        int[] ownLines = board.getLines(stone);
+        int[] opponentLines = board.getLines(3 - stone);
+        int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            IntVector result = IntVector.zero(SPECIES);
+            for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+                IntVector.fromArray(SPECIES, LINE_OF[d], 0, cells, i).intoArray(indexMap, 0);
+                IntVector bit = IntVector.fromArray(SPECIES, BIT_OF[d], 0, cells, i);
+                IntVector own = IntVector.fromArray(SPECIES, ownLines, 0, indexMap, 0);
+                IntVector blocked = IntVector.fromArray(SPECIES, opponentLines, 0, indexMap, 0)
+                        .or(IntVector.fromArray(SPECIES, OUTSIDE, 0, indexMap, 0));
+
+                // 与 ScalarShapeKernel.patternIndex 相同的窗口编码
+                IntVector ownWindow = own.lanewise(VectorOperators.LSHL, 4)
+                        .lanewise(VectorOperators.LSHR, bit)
+                        .and(0x1FF);
+                IntVector blockedWindow = blocked.lanewise(VectorOperators.LSHL, 4)
+                        .or(0xF)
+                        .lanewise(VectorOperators.LSHR, bit)
+                        .and(0x1FF);
+                ownWindow.and(0xF)
+                        .or(ownWindow.lanewise(VectorOperators.LSHR, 5).lanewise(VectorOperators.LSHL, 4))
+                        .or(blockedWindow.and(0xF).lanewise(VectorOperators.LSHL, 8))
+                        .or(blockedWindow.lanewise(VectorOperators.LSHR, 5).lanewise(VectorOperators.LSHL, 12))
+                        .intoArray(indexMap, 0);
+                result = result.add(IntVector.fromArray(SPECIES, ScalarShapeKernel.PATTERN, 0, indexMap, 0));
+            }
+            result.intoArray(out, i);
+        }
+
+        // 不足一个向量的尾部走标量实现
+        for (; i < count; i++) {
+            out[i] = ScalarShapeKernel.shape(board, cells[i], stone);
+        }
+
+        // 黑棋长连不算五连，表中出现五连的点按整条线重新判断（很少见）
+        if (stone == Board.BLACK) {
+            for (int k = 0; k < bound; k++) {
+                if ((out[k] & 0xF) != 0) {
+                    out[k] = ScalarShapeKernel.shape(board, cells[k], stone);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,265 @@
+package com.gomoku.config;
+
+import com.gomoku.enums.AIDifficulty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * AI引擎配置
+ *
+ * 每个需要搜索的难度各有一份时间/节点预算，可以按部署节点的负载单独调整
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gomoku.ai")
+public class AIProperties {
+
+    /**
+     * 困难难度的搜索预算
+     */
+    private SearchBudget hard = new SearchBudget(3000, 0, 12);
+
+    /**
+     * 蒙特卡洛树搜索（专家难度）配置
+     */
+    private Mcts mcts = new Mcts();
+
+    /**
+     * 困难难度在对方思考期间的后台思考配置
+     */
+    private Ponder ponder = new Ponder();
+
+    /**
+     * 困难难度在主搜索之前运行的威胁空间搜索预算
+     */
+    private ThreatBudget threat = new ThreatBudget(10, 4, 20000);
+
+    /**
+     * 困难难度的并行搜索（Lazy SMP）配置
+     */
+    private Parallel parallel = new Parallel();
+
+    /**
+     * AI计算专用线程池配置
+     */
+    private Executor executor = new Executor();
+
+    /**
+     * 开局库配置
+     */
+    private Book book = new Book();
+
+    /**
+     * 跨对局应手缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 搜索预算
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class SearchBudget {
+
+        /**
+         * 单步最大思考时间（毫秒）
+         */
+        private long timeLimitMs;
+
+        /**
+         * 单步最大搜索节点数，0表示不限制
+         */
+        private long nodeLimit;
+
+        /**
+         * 迭代加深的最大深度
+         */
+        private int maxDepth;
+    }
+
+    /**
+     * 蒙特卡洛树搜索配置
+     */
+    @Data
+    public static class Mcts {
+
+        /**
+         * 单步最大思考时间（毫秒），思考时间越长棋力越强
+         */
+        private long timeLimitMs = 3000;
+
+        /**
+         * 单步最大迭代次数，0表示只受时间限制
+         */
+        private long iterationLimit = 0;
+
+        /**
+         * 每次模拟最多走的步数，超过后按评估分折算胜率
+         */
+        private int rolloutDepth = 40;
+
+        /**
+         * UCT探索系数
+         */
+        private double exploration = 0.7;
+
+        /**
+         * 单棵搜索树的节点上限，达到后只模拟不再展开
+         */
+        private int maxTreeNodes = 50_000;
+
+        /**
+         * 跨回合保留子树的对局数（每局一棵，对局结束时丢弃），超出后淘汰最久未用的对局的子树，用来限制内存
+         */
+        private int reusedTrees = 16;
+    }
+
+    /**
+     * 后台思考配置
+     */
+    @Data
+    public static class Ponder {
+
+        /**
+         * 是否在对方思考期间预先搜索预测的局面
+         */
+        private boolean enabled = false;
+
+        /**
+         * 单次后台思考的最长时间（毫秒），对方长时间不落子时不会一直占用CPU
+         */
+        private long timeLimitMs = 30_000;
+
+        /**
+         * 后台思考线程数，所有线程都在忙时新的后台思考直接放弃
+         */
+        private int threads = 2;
+    }
+
+    /**
+     * 并行搜索配置
+     */
+    @Data
+    public static class Parallel {
+
+        /**
+         * 是否启用辅助线程，关闭后所有搜索都是单线程
+         */
+        private boolean enabled = true;
+
+        /**
+         * 辅助线程池大小，0表示使用CPU核数
+         */
+        private int threads = 0;
+
+        /**
+         * 单次搜索最多使用的线程数（含调用线程）
+         */
+        private int maxThreadsPerSearch = 4;
+
+        /**
+         * 同时使用辅助线程的搜索数上限，超过后新的搜索退化为单线程
+         */
+        private int maxParallelSearches = 4;
+
+        public int resolveThreads() {
+            return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * AI计算线程池配置
+     */
+    @Data
+    public static class Executor {
+
+        /**
+         * 线程数，0表示使用CPU核数
+         */
+        private int threads = 0;
+
+        /**
+         * 排队与执行中的AI任务总数上限，超过后拒绝并由调用方降级处理
+         */
+        private int queueCapacity = 256;
+
+        /**
+         * 排队与执行中的任务数超过该值时，困难/专家难度降级为中等难度
+         */
+        private int degradeThreshold = 64;
+
+        public int resolveThreads() {
+            return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * 开局库配置
+     */
+    @Data
+    public static class Book {
+
+        /**
+         * 是否启用开局库，所有难度共用
+         */
+        private boolean enabled = true;
+
+        /**
+         * 类路径下的开局库资源
+         */
+        private String resource = "opening-book.bin";
+    }
+
+    /**
+     * 跨对局应手缓存配置
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * 是否启用应手缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存的局面数上限，超出后淘汰最久未用的
+         */
+        private int maxEntries = 50_000;
+
+        /**
+         * 使用缓存的难度；简单难度的应手是随机的，不应加入
+         */
+        private Set<AIDifficulty> difficulties = EnumSet.of(AIDifficulty.HARD, AIDifficulty.EXPERT);
+    }
+
+    /**
+     * 威胁空间搜索（VCF/VCT）预算
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ThreatBudget {
+
+        /**
+         * VCF最多连续冲四的步数
+         */
+        private int vcfDepth;
+
+        /**
+         * VCT最多连续进攻的步数
+         */
+        private int vctDepth;
+
+        /**
+         * 每次求解的节点上限
+         */
+        private long nodeLimit;
+    }
+}
@@ -0,0 +1,138 @@
+package com.gomoku.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 对局服务配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "gomoku.game")
+public class GameProperties {
+
+    /**
+     * 对局命令执行线程配置
+     */
+    private Actor actor = new Actor();
+
+    /**
+     * 棋谱异步批量写入配置
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * 棋盘快照配置
+     */
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * 进行中对局的棋盘缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 空闲对局清理配置
+     */
+    private Reaper reaper = new Reaper();
+
+    /**
+     * 对局命令执行线程配置
+     */
+    @Data
+    public static class Actor {
+
+        /**
+         * 分片线程数，0表示使用CPU核数；同一对局的命令总是落在同一个线程上顺序执行
+         */
+        private int threads = 0;
+
+        public int resolveThreads() {
+            return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * 棋谱异步批量写入配置
+     */
+    @Data
+    public static class Journal {
+
+        /**
+         * 每批写入的最大条数
+         */
+        private int batchSize = 50;
+
+        /**
+         * 一批从收到第一条起最多等待的时间（毫秒），到时未满也写入
+         */
+        private long flushIntervalMs = 200;
+
+        /**
+         * 内存中等待写入的最大条数，超出后直接写入本地兜底文件
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 本地兜底文件，写库失败的棋步追加到这里，数据库恢复后补写并清空
+         */
+        private String fallbackFile = "move-journal.log";
+    }
+
+    /**
+     * 棋盘快照配置
+     */
+    @Data
+    public static class Snapshot {
+
+        /**
+         * 每隔多少步保存一次棋盘快照，0表示不保存（恢复时完整回放）
+         */
+        private int interval = 20;
+
+        /**
+         * 启动完成后是否在后台预先恢复所有进行中对局的棋盘
+         */
+        private boolean warmUp = true;
+    }
+
+    /**
+     * 进行中对局的棋盘缓存配置
+     */
+    @Data
+    public static class Cache {
+
+        /**
+         * 最多驻留内存的对局数，超出后淘汰最久未访问的对局
+         */
+        private int maxEntries = 10000;
+
+        /**
+         * 对局多久（毫秒）无人访问后从内存淘汰，下次访问时从快照恢复
+         */
+        private long idleEvictMs = 600_000;
+    }
+
+    /**
+     * 空闲对局清理配置
+     */
+    @Data
+    public static class Reaper {
+
+        /**
+         * 是否结束长时间没有落子的对局
+         */
+        private boolean enabled = true;
+
+        /**
+         * 清理任务的执行间隔（毫秒），同时负责淘汰空闲棋盘
+         */
+        private long intervalMs = 60_000;
+
+        /**
+         * 对局多久（毫秒）没有落子后结束
+         */
+        private long idleTimeoutMs = 1_800_000;
+    }
+}
@@ -16,8 +16,10 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class GameMove {
     
+    // 序列主键按步长预取，IDENTITY会让Hibernate无法批量插入
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "game_move_seq")
+    @SequenceGenerator(name = "game_move_seq", sequenceName = "game_move_seq", allocationSize = 50)
     @Column(name = "move_id")
     private Long moveId;
     
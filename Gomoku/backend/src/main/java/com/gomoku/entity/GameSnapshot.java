@@ -0,0 +1,42 @@
+package com.gomoku.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 对局棋盘快照：每局只保留最新一份，恢复棋盘时从快照开始只回放之后的棋步
+ */
+@Entity
+@Table(name = "game_snapshot")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameSnapshot {
+    
+    @Id
+    @Column(name = "game_id")
+    private Long gameId;
+    
+    // 快照包含的步数
+    @Column(name = "move_count", nullable = false)
+    private Integer moveCount;
+    
+    // 按落子顺序每步一个字节的格子编号，见 Board.toMoveBytes
+    @Column(name = "moves", nullable = false, length = 225)
+    private byte[] moves;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -14,5 +14,10 @@ public enum AIDifficulty {
     /**
      * 困难难度
      */
-    HARD
+    HARD,
+    
+    /**
+     * 专家难度（蒙特卡洛树搜索，棋力随思考时间提升）
+     */
+    EXPERT
 }
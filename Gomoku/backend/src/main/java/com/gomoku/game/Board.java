@@ -1,27 +1,227 @@
 package com.gomoku.game;
 
 import com.gomoku.enums.PieceColor;
-import lombok.Data;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
 
 /**
  * 棋盘管理类
+ *
+ * 采用位棋盘表示：每种颜色一份225位的格子位集（由4个long组成），
+ * 另外按横、竖、两条斜线共88条线各维护一个15位的线掩码，
+ * 落子/撤销为O(1)，任一条线的棋形可以直接以掩码形式取出。
  */
-@Data
 public class Board {
-    
+
     public static final int BOARD_SIZE = 15;
-    
-    // 棋盘状态：0-空，1-黑棋，2-白棋
-    private int[][] board;
-    
+
+    public static final int CELL_COUNT = BOARD_SIZE * BOARD_SIZE;
+
+    // 棋子编码：0-空，1-黑棋，2-白棋
+    public static final int EMPTY = 0;
+    public static final int BLACK = 1;
+    public static final int WHITE = 2;
+
+    // 四个方向，与 (dx, dy) 一一对应
+    public static final int DIRECTION_COUNT = 4;
+    public static final int[] DX = {1, 0, 1, 1};
+    public static final int[] DY = {0, 1, 1, -1};
+
+    // 线编号：0-14 沿x方向，15-29 沿y方向，30-58 主对角线，59-87 副对角线
+    public static final int LINE_COUNT = BOARD_SIZE * 2 + (BOARD_SIZE * 2 - 1) * 2;
+
+    // 每个格子在各方向上所在的线编号以及在该线掩码中的位序
+    private static final int[][] LINE_OF = new int[DIRECTION_COUNT][CELL_COUNT];
+    private static final int[][] BIT_OF = new int[DIRECTION_COUNT][CELL_COUNT];
+
+    // 每条线上有效位的掩码，以及位序到格子编号的映射（无效位为-1）
+    private static final int[] LINE_MASK = new int[LINE_COUNT];
+    private static final int[][] LINE_CELLS = new int[LINE_COUNT][BOARD_SIZE];
+
+    static {
+        for (int[] cells : LINE_CELLS) {
+            Arrays.fill(cells, -1);
+        }
+        for (int x = 0; x < BOARD_SIZE; x++) {
+            for (int y = 0; y < BOARD_SIZE; y++) {
+                int cell = index(x, y);
+                int[] lines = {
+                        y,
+                        BOARD_SIZE + x,
+                        BOARD_SIZE * 2 + (x - y + BOARD_SIZE - 1),
+                        BOARD_SIZE * 2 + (BOARD_SIZE * 2 - 1) + (x + y)
+                };
+                int[] bits = {x, y, x, x};
+                for (int d = 0; d < DIRECTION_COUNT; d++) {
+                    LINE_OF[d][cell] = lines[d];
+                    BIT_OF[d][cell] = bits[d];
+                    LINE_MASK[lines[d]] |= 1 << bits[d];
+                    LINE_CELLS[lines[d]][bits[d]] = cell;
+                }
+            }
+        }
+    }
+
+    // Zobrist随机数表，每种颜色每个格子一个键；种子固定，哈希值在进程间稳定
+    private static final long[][] ZOBRIST = new long[2][CELL_COUNT];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_60AE_2024L);
+        for (int side = 0; side < 2; side++) {
+            for (int cell = 0; cell < CELL_COUNT; cell++) {
+                ZOBRIST[side][cell] = random.nextLong();
+            }
+        }
+    }
+
+    // 棋盘的8种对称变换（旋转、翻转），SYMMETRY[s][cell] 为格子在变换s下的像
+    public static final int SYMMETRY_COUNT = 8;
+    private static final int[][] SYMMETRY = new int[SYMMETRY_COUNT][CELL_COUNT];
+    private static final int[][] SYMMETRY_INVERSE = new int[SYMMETRY_COUNT][CELL_COUNT];
+
+    static {
+        int max = BOARD_SIZE - 1;
+        for (int s = 0; s < SYMMETRY_COUNT; s++) {
+            for (int x = 0; x < BOARD_SIZE; x++) {
+                for (int y = 0; y < BOARD_SIZE; y++) {
+                    int tx = (s & 1) != 0 ? max - x : x;
+                    int ty = (s & 2) != 0 ? max - y : y;
+                    int image = (s & 4) != 0 ? index(ty, tx) : index(tx, ty);
+                    SYMMETRY[s][index(x, y)] = image;
+                    SYMMETRY_INVERSE[s][image] = index(x, y);
+                }
+            }
+        }
+    }
+
+    // 候选点范围：与已有棋子的横纵距离都不超过2的空格
+    public static final int NEIGHBOR_RANGE = 2;
+
+    // NEIGHBORS[cell] 为该格子候选点范围内的其他格子
+    private static final int[][] NEIGHBORS = new int[CELL_COUNT][];
+
+    static {
+        for (int x = 0; x < BOARD_SIZE; x++) {
+            for (int y = 0; y < BOARD_SIZE; y++) {
+                int[] buffer = new int[(NEIGHBOR_RANGE * 2 + 1) * (NEIGHBOR_RANGE * 2 + 1)];
+                int count = 0;
+                for (int dx = -NEIGHBOR_RANGE; dx <= NEIGHBOR_RANGE; dx++) {
+                    for (int dy = -NEIGHBOR_RANGE; dy <= NEIGHBOR_RANGE; dy++) {
+                        int nx = x + dx;
+                        int ny = y + dy;
+                        if ((dx != 0 || dy != 0) && nx >= 0 && nx < BOARD_SIZE && ny >= 0 && ny < BOARD_SIZE) {
+                            buffer[count++] = index(nx, ny);
+                        }
+                    }
+                }
+                NEIGHBORS[index(x, y)] = Arrays.copyOf(buffer, count);
+            }
+        }
+    }
+
+    // 每种颜色的格子位集，下标为 x * 15 + y
+    private final long[][] cells = new long[2][4];
+
+    // 每种颜色在每条线上的掩码
+    private final int[][] lines = new int[2][LINE_COUNT];
+
+    // 落子顺序（格子编号），用于撤销
+    private final int[] history = new int[CELL_COUNT];
+
+    // 每个格子候选点范围内的棋子数，随落子/撤销增量维护
+    private final byte[] neighborCount = new byte[CELL_COUNT];
+
+    // 候选点位集：邻近有棋子的空格
+    private final long[] candidates = new long[4];
+
+    // 威胁索引：每种颜色在每条线上的成五点、成四点（落子后该线上形成连续5子/4子及以上的空位，黑棋成五点不含长连）
+    private final int[][] fivePoints = new int[2][LINE_COUNT];
+    private final int[][] fourPoints = new int[2][LINE_COUNT];
+
+    // 有成五点、成四点的线的位集，查询时只需遍历这些线
+    private final long[][] fiveLines = new long[2][2];
+    private final long[][] fourLines = new long[2][2];
+
+    // 落子/撤销后威胁索引尚未更新的线；搜索中的落子/撤销只做标记，查询时才重新计算这些线
+    private final long[] dirtyLines = new long[2];
+
     // 当前回合数
+    @Getter
     private int moveCount;
-    
+
+    // 局面的Zobrist哈希，随落子/撤销增量更新（行棋方由棋子数奇偶性隐含）
+    @Getter
+    private long hash;
+
     public Board() {
-        this.board = new int[BOARD_SIZE][BOARD_SIZE];
         this.moveCount = 0;
     }
-    
+
+    /**
+     * 坐标转格子编号
+     */
+    public static int index(int x, int y) {
+        return x * BOARD_SIZE + y;
+    }
+
+    /**
+     * 获取格子在指定方向上所在的线编号
+     */
+    public static int lineOf(int direction, int cell) {
+        return LINE_OF[direction][cell];
+    }
+
+    /**
+     * 获取格子在指定方向的线掩码中的位序
+     */
+    public static int bitOf(int direction, int cell) {
+        return BIT_OF[direction][cell];
+    }
+
+    /**
+     * 获取线上有效位的掩码
+     */
+    public static int lineMask(int line) {
+        return LINE_MASK[line];
+    }
+
+    /**
+     * 获取线上指定位序对应的格子编号，越界返回-1
+     */
+    public static int lineCell(int line, int bit) {
+        if (bit < 0 || bit >= BOARD_SIZE) {
+            return -1;
+        }
+        return LINE_CELLS[line][bit];
+    }
+
+    /**
+     * 计算掩码中包含指定位的连续1的长度（该位视为已置位）
+     */
+    public static int runLength(int mask, int bit) {
+        mask |= 1 << bit;
+        int up = Integer.numberOfTrailingZeros(~(mask >>> bit));
+        int down = Integer.numberOfLeadingZeros(~(mask << (31 - bit)));
+        return up + down - 1;
+    }
+
+    /**
+     * 格子在对称变换下的像
+     */
+    public static int transform(int symmetry, int cell) {
+        return SYMMETRY[symmetry][cell];
+    }
+
+    /**
+     * 对称变换的逆变换
+     */
+    public static int inverseTransform(int symmetry, int cell) {
+        return SYMMETRY_INVERSE[symmetry][cell];
+    }
+
     /**
      * 放置棋子
      */
@@ -29,143 +229,485 @@ public class Board {
         if (!isValidPosition(x, y) || !isEmpty(x, y)) {
             return false;
         }
-        
-        board[x][y] = color == PieceColor.BLACK ? 1 : 2;
-        moveCount++;
+
+        int cell = index(x, y);
+        setCell(cell, color == PieceColor.BLACK ? 0 : 1);
+        history[moveCount++] = cell;
         return true;
     }
-    
+
+    /**
+     * 撤销最近一次落子，回合数同时回退
+     */
+    public boolean undoStone() {
+        if (moveCount == 0) {
+            return false;
+        }
+
+        int cell = history[--moveCount];
+        clearCell(cell, (cells[0][cell >>> 6] & (1L << cell)) != 0 ? 0 : 1);
+        return true;
+    }
+
+    /**
+     * 从指定格子开始查找下一个候选点（邻近有棋子的空格），没有时返回-1
+     * 用法：for (int c = board.nextCandidate(0); c >= 0; c = board.nextCandidate(c + 1))
+     */
+    public int nextCandidate(int from) {
+        return nextSetBit(candidates, from);
+    }
+
+    /**
+     * 候选点数量
+     */
+    public int getCandidateCount() {
+        return Long.bitCount(candidates[0]) + Long.bitCount(candidates[1])
+                + Long.bitCount(candidates[2]) + Long.bitCount(candidates[3]);
+    }
+
+    /**
+     * 按格子编号顺序取第n个（从0开始）空格，n超出空格数时返回-1
+     */
+    public int nthEmptyCell(int n) {
+        for (int word = 0; word < 4; word++) {
+            long empty = ~(cells[0][word] | cells[1][word]);
+            if (word == 3) {
+                empty &= (1L << (CELL_COUNT - 192)) - 1;
+            }
+            int count = Long.bitCount(empty);
+            if (n < count) {
+                for (int i = 0; i < n; i++) {
+                    empty &= empty - 1;
+                }
+                return word * 64 + Long.numberOfTrailingZeros(empty);
+            }
+            n -= count;
+        }
+        return -1;
+    }
+
+    private static int nextSetBit(long[] words, int from) {
+        if (from >= CELL_COUNT) {
+            return -1;
+        }
+        int word = from >>> 6;
+        long bits = words[word] & (-1L << from);
+        while (true) {
+            if (bits != 0) {
+                return word * 64 + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    /**
+     * 获取最近一次落子的格子编号，空棋盘返回-1
+     */
+    public int getLastMove() {
+        return moveCount == 0 ? -1 : history[moveCount - 1];
+    }
+
+    /**
+     * 获取第ply步（从0开始）的格子编号
+     */
+    public int getMoveAt(int ply) {
+        return history[ply];
+    }
+
+    /**
+     * 计算局面经过对称变换后的Zobrist哈希（按需遍历落子记录，不在落子时维护）
+     */
+    public long symmetryHash(int symmetry) {
+        int[] image = SYMMETRY[symmetry];
+        long result = 0L;
+        for (int i = 0; i < moveCount; i++) {
+            int cell = history[i];
+            result ^= ZOBRIST[getStoneAt(cell) - 1][image[cell]];
+        }
+        return result;
+    }
+
+    /**
+     * 哈希值最小的对称变换，8种对称局面经过各自的规范变换后得到同一个局面
+     */
+    public int canonicalSymmetry() {
+        int best = 0;
+        long bestHash = symmetryHash(0);
+        for (int s = 1; s < SYMMETRY_COUNT; s++) {
+            long h = symmetryHash(s);
+            if (h < bestHash) {
+                best = s;
+                bestHash = h;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 规范哈希：8种对称局面共享同一个值
+     */
+    public long canonicalHash() {
+        return symmetryHash(canonicalSymmetry());
+    }
+
+    private void setCell(int cell, int side) {
+        cells[side][cell >>> 6] |= 1L << cell;
+        hash ^= ZOBRIST[side][cell];
+        candidates[cell >>> 6] &= ~(1L << cell);
+        for (int neighbor : NEIGHBORS[cell]) {
+            if (neighborCount[neighbor]++ == 0 && isEmptyCell(neighbor)) {
+                candidates[neighbor >>> 6] |= 1L << neighbor;
+            }
+        }
+        int[] sideLines = lines[side];
+        for (int d = 0; d < DIRECTION_COUNT; d++) {
+            int line = LINE_OF[d][cell];
+            sideLines[line] |= 1 << BIT_OF[d][cell];
+            dirtyLines[line >>> 6] |= 1L << line;
+        }
+    }
+
+    private void clearCell(int cell, int side) {
+        cells[side][cell >>> 6] &= ~(1L << cell);
+        hash ^= ZOBRIST[side][cell];
+        for (int neighbor : NEIGHBORS[cell]) {
+            if (--neighborCount[neighbor] == 0) {
+                candidates[neighbor >>> 6] &= ~(1L << neighbor);
+            }
+        }
+        if (neighborCount[cell] > 0) {
+            candidates[cell >>> 6] |= 1L << cell;
+        }
+        int[] sideLines = lines[side];
+        for (int d = 0; d < DIRECTION_COUNT; d++) {
+            int line = LINE_OF[d][cell];
+            sideLines[line] &= ~(1 << BIT_OF[d][cell]);
+            dirtyLines[line >>> 6] |= 1L << line;
+        }
+    }
+
+    /**
+     * 重新计算有变动的线上双方的成五点、成四点
+     * 落子改变了本方的连子，也占掉了对方的空位，所以两种颜色都要更新
+     */
+    private void refreshThreats() {
+        for (int word = 0; word < dirtyLines.length; word++) {
+            for (long bits = dirtyLines[word]; bits != 0; bits &= bits - 1) {
+                int line = word * 64 + Long.numberOfTrailingZeros(bits);
+                int black = lines[0][line];
+                int white = lines[1][line];
+                int empty = LINE_MASK[line] & ~(black | white);
+                updateThreatLine(0, line, black, empty);
+                updateThreatLine(1, line, white, empty);
+            }
+            dirtyLines[word] = 0L;
+        }
+    }
+
+    private void updateThreatLine(int side, int line, int own, int empty) {
+        // left[k]/right[k]：该位下方/上方紧邻的k个位置都是己方棋子
+        int left1 = own << 1;
+        int left2 = left1 & (own << 2);
+        int left3 = left2 & (own << 3);
+        int left4 = left3 & (own << 4);
+        int right1 = own >>> 1;
+        int right2 = right1 & (own >>> 2);
+        int right3 = right2 & (own >>> 3);
+        int right4 = right3 & (own >>> 4);
+
+        int five;
+        if (side == 0) {
+            // 黑棋长连不算五连：两侧连子数之和必须恰好为4
+            int left5 = left4 & (own << 5);
+            int right5 = right4 & (own >>> 5);
+            five = empty & ((left4 & ~left5 & ~right1)
+                    | (left3 & ~left4 & right1 & ~right2)
+                    | (left2 & ~left3 & right2 & ~right3)
+                    | (left1 & ~left2 & right3 & ~right4)
+                    | (~left1 & right4 & ~right5));
+        } else {
+            five = empty & (left4 | (left3 & right1) | (left2 & right2) | (left1 & right3) | right4);
+        }
+        int four = empty & (left3 | (left2 & right1) | (left1 & right2) | right3);
+
+        long lineBit = 1L << line;
+        int word = line >>> 6;
+        fivePoints[side][line] = five;
+        fourPoints[side][line] = four;
+        fiveLines[side][word] = five != 0 ? fiveLines[side][word] | lineBit : fiveLines[side][word] & ~lineBit;
+        fourLines[side][word] = four != 0 ? fourLines[side][word] | lineBit : fourLines[side][word] & ~lineBit;
+    }
+
     /**
      * 检查位置是否有效
      */
     public boolean isValidPosition(int x, int y) {
         return x >= 0 && x < BOARD_SIZE && y >= 0 && y < BOARD_SIZE;
     }
-    
+
     /**
      * 检查位置是否为空
      */
     public boolean isEmpty(int x, int y) {
-        return board[x][y] == 0;
+        return isEmptyCell(index(x, y));
     }
-    
+
+    /**
+     * 检查格子是否为空
+     */
+    public boolean isEmptyCell(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        return ((cells[0][word] | cells[1][word]) & bit) == 0;
+    }
+
     /**
      * 获取指定位置的棋子
      */
     public int getStone(int x, int y) {
         if (!isValidPosition(x, y)) {
+            return EMPTY;
+        }
+        return getStoneAt(index(x, y));
+    }
+
+    /**
+     * 获取指定格子的棋子
+     */
+    public int getStoneAt(int cell) {
+        long bit = 1L << cell;
+        int word = cell >>> 6;
+        if ((cells[0][word] & bit) != 0) {
+            return BLACK;
+        }
+        if ((cells[1][word] & bit) != 0) {
+            return WHITE;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * 获取指定棋子在某条线上的掩码
+     */
+    public int getLine(int stone, int line) {
+        return lines[stone - 1][line];
+    }
+
+    /**
+     * 获取指定棋子所有线的掩码数组，下标为线编号；只读，供批量评估按线编号gather
+     */
+    public int[] getLines(int stone) {
+        return lines[stone - 1];
+    }
+
+    /**
+     * 获取经过指定格子、指定方向上某种棋子的线掩码
+     */
+    public int getLineThrough(int stone, int direction, int cell) {
+        return lines[stone - 1][LINE_OF[direction][cell]];
+    }
+
+    /**
+     * 获取指定位置的棋子在某方向上的连子数（含该位置）
+     */
+    public int countRun(int x, int y, int direction) {
+        int cell = index(x, y);
+        int stone = getStoneAt(cell);
+        if (stone == EMPTY) {
             return 0;
         }
-        return board[x][y];
+        return runLength(getLineThrough(stone, direction, cell), BIT_OF[direction][cell]);
+    }
+
+    /**
+     * 以二维数组形式导出棋盘（0-空，1-黑棋，2-白棋）
+     */
+    public int[][] getBoard() {
+        int[][] matrix = new int[BOARD_SIZE][BOARD_SIZE];
+        for (int x = 0; x < BOARD_SIZE; x++) {
+            for (int y = 0; y < BOARD_SIZE; y++) {
+                matrix[x][y] = getStoneAt(index(x, y));
+            }
+        }
+        return matrix;
     }
-    
+
     /**
      * 检查是否获胜
      */
     public boolean checkWin(int x, int y) {
-        int stone = board[x][y];
-        if (stone == 0) {
-            return false;
-        }
-        
-        // 检查四个方向
-        return checkDirection(x, y, 1, 0, stone) ||  // 横向
-               checkDirection(x, y, 0, 1, stone) ||  // 纵向
-               checkDirection(x, y, 1, 1, stone) ||  // 左上到右下
-               checkDirection(x, y, 1, -1, stone);   // 右上到左下
-    }
-    
-    /**
-     * 检查指定方向是否有五子连珠
-     */
-    private boolean checkDirection(int x, int y, int dx, int dy, int stone) {
-        int count = 1;
-        
-        // 正向检查
-        int nx = x + dx;
-        int ny = y + dy;
-        while (isValidPosition(nx, ny) && board[nx][ny] == stone) {
-            count++;
-            nx += dx;
-            ny += dy;
-        }
-        
-        // 反向检查
-        nx = x - dx;
-        ny = y - dy;
-        while (isValidPosition(nx, ny) && board[nx][ny] == stone) {
-            count++;
-            nx -= dx;
-            ny -= dy;
-        }
-        
-        return count >= 5;
-    }
-    
+        return maxRun(x, y) >= 5;
+    }
+
     /**
      * 检查是否为长连（超过5子）
      */
     public boolean isOverline(int x, int y) {
-        int stone = board[x][y];
-        if (stone == 0) {
-            return false;
+        return maxRun(x, y) > 5;
+    }
+
+    /**
+     * 计算经过指定位置的四个方向上最长的连子数
+     */
+    private int maxRun(int x, int y) {
+        int cell = index(x, y);
+        int stone = getStoneAt(cell);
+        if (stone == EMPTY) {
+            return 0;
+        }
+
+        int[] sideLines = lines[stone - 1];
+        int max = 0;
+        for (int d = 0; d < DIRECTION_COUNT; d++) {
+            max = Math.max(max, runLength(sideLines[LINE_OF[d][cell]], BIT_OF[d][cell]));
         }
-        
-        return checkOverlineDirection(x, y, 1, 0, stone) ||
-               checkOverlineDirection(x, y, 0, 1, stone) ||
-               checkOverlineDirection(x, y, 1, 1, stone) ||
-               checkOverlineDirection(x, y, 1, -1, stone);
+        return max;
+    }
+
+    /**
+     * 该颜色落子即可获胜的空位中格子编号最小的一个，没有时返回-1；黑棋必须恰好连成五子，白棋五子及以上
+     */
+    public int firstFivePoint(int stone) {
+        refreshThreats();
+        return firstThreatPoint(fivePoints[stone - 1], fiveLines[stone - 1]);
+    }
+
+    /**
+     * 该颜色落子即可连成四子（或更长）的空位中格子编号最小的一个，没有时返回-1
+     */
+    public int firstFourPoint(int stone) {
+        refreshThreats();
+        return firstThreatPoint(fourPoints[stone - 1], fourLines[stone - 1]);
     }
-    
+
+    /**
+     * 同{@link #firstFivePoint(int)}，但只取accept接受的点（如黑棋跳过禁手点），按格子编号从小到大检查
+     */
+    public int firstFivePoint(int stone, IntPredicate accept) {
+        refreshThreats();
+        return firstThreatPoint(fivePoints[stone - 1], fiveLines[stone - 1], accept);
+    }
+
     /**
-     * 检查指定方向是否超过五子
+     * 同{@link #firstFourPoint(int)}，但只取accept接受的点，按格子编号从小到大检查
      */
-    private boolean checkOverlineDirection(int x, int y, int dx, int dy, int stone) {
-        int count = 1;
-        
-        int nx = x + dx;
-        int ny = y + dy;
-        while (isValidPosition(nx, ny) && board[nx][ny] == stone) {
-            count++;
-            nx += dx;
-            ny += dy;
+    public int firstFourPoint(int stone, IntPredicate accept) {
+        refreshThreats();
+        return firstThreatPoint(fourPoints[stone - 1], fourLines[stone - 1], accept);
+    }
+
+    private static int firstThreatPoint(int[] points, long[] threatLines, IntPredicate accept) {
+        // 同一点可能同时在几条线上，先汇总成格子位集再按编号顺序检查，每个点最多检查一次
+        long[] cells = new long[(CELL_COUNT + 63) >>> 6];
+        for (int word = 0; word < threatLines.length; word++) {
+            for (long bits = threatLines[word]; bits != 0; bits &= bits - 1) {
+                int line = word * 64 + Long.numberOfTrailingZeros(bits);
+                for (int mask = points[line]; mask != 0; mask &= mask - 1) {
+                    int cell = LINE_CELLS[line][Integer.numberOfTrailingZeros(mask)];
+                    cells[cell >>> 6] |= 1L << cell;
+                }
+            }
         }
-        
-        nx = x - dx;
-        ny = y - dy;
-        while (isValidPosition(nx, ny) && board[nx][ny] == stone) {
-            count++;
-            nx -= dx;
-            ny -= dy;
+        for (int cell = nextSetBit(cells, 0); cell >= 0; cell = nextSetBit(cells, cell + 1)) {
+            if (accept.test(cell)) {
+                return cell;
+            }
         }
-        
-        return count > 5;
+        return -1;
     }
-    
+
+    private static int firstThreatPoint(int[] points, long[] threatLines) {
+        int first = -1;
+        for (int word = 0; word < threatLines.length; word++) {
+            for (long bits = threatLines[word]; bits != 0; bits &= bits - 1) {
+                int line = word * 64 + Long.numberOfTrailingZeros(bits);
+                for (int mask = points[line]; mask != 0; mask &= mask - 1) {
+                    int cell = LINE_CELLS[line][Integer.numberOfTrailingZeros(mask)];
+                    if (first < 0 || cell < first) {
+                        first = cell;
+                    }
+                }
+            }
+        }
+        return first;
+    }
+
     /**
      * 检查棋盘是否已满
      */
     public boolean isFull() {
-        return moveCount >= BOARD_SIZE * BOARD_SIZE;
+        return moveCount >= CELL_COUNT;
     }
-    
+
     /**
      * 重置棋盘
      */
     public void reset() {
-        board = new int[BOARD_SIZE][BOARD_SIZE];
+        for (int side = 0; side < 2; side++) {
+            Arrays.fill(cells[side], 0L);
+            Arrays.fill(lines[side], 0);
+        }
+        Arrays.fill(neighborCount, (byte) 0);
+        Arrays.fill(candidates, 0L);
+        for (int side = 0; side < 2; side++) {
+            Arrays.fill(fivePoints[side], 0);
+            Arrays.fill(fourPoints[side], 0);
+            Arrays.fill(fiveLines[side], 0L);
+            Arrays.fill(fourLines[side], 0L);
+        }
+        Arrays.fill(dirtyLines, 0L);
         moveCount = 0;
+        hash = 0L;
+    }
+
+    /**
+     * 按落子顺序导出为字节数组（每步一个格子编号），用于持久化棋盘快照
+     */
+    public byte[] toMoveBytes() {
+        byte[] moves = new byte[moveCount];
+        for (int i = 0; i < moveCount; i++) {
+            moves[i] = (byte) history[i];
+        }
+        return moves;
     }
-    
+
+    /**
+     * 按落子顺序恢复棋盘，黑棋先行、双方交替
+     */
+    public static Board fromMoveBytes(byte[] moves) {
+        Board board = new Board();
+        for (int ply = 0; ply < moves.length; ply++) {
+            int cell = moves[ply] & 0xFF;
+            PieceColor color = ply % 2 == 0 ? PieceColor.BLACK : PieceColor.WHITE;
+            if (!board.placeStone(cell / BOARD_SIZE, cell % BOARD_SIZE, color)) {
+                throw new IllegalArgumentException("棋盘快照中第" + (ply + 1) + "步落子非法");
+            }
+        }
+        return board;
+    }
+
     /**
      * 复制棋盘
      */
     public Board copy() {
         Board newBoard = new Board();
-        for (int i = 0; i < BOARD_SIZE; i++) {
-            System.arraycopy(this.board[i], 0, newBoard.board[i], 0, BOARD_SIZE);
+        for (int side = 0; side < 2; side++) {
+            System.arraycopy(this.cells[side], 0, newBoard.cells[side], 0, this.cells[side].length);
+            System.arraycopy(this.lines[side], 0, newBoard.lines[side], 0, LINE_COUNT);
+            System.arraycopy(this.fivePoints[side], 0, newBoard.fivePoints[side], 0, LINE_COUNT);
+            System.arraycopy(this.fourPoints[side], 0, newBoard.fourPoints[side], 0, LINE_COUNT);
+            System.arraycopy(this.fiveLines[side], 0, newBoard.fiveLines[side], 0, this.fiveLines[side].length);
+            System.arraycopy(this.fourLines[side], 0, newBoard.fourLines[side], 0, this.fourLines[side].length);
         }
+        System.arraycopy(this.neighborCount, 0, newBoard.neighborCount, 0, CELL_COUNT);
+        System.arraycopy(this.candidates, 0, newBoard.candidates, 0, this.candidates.length);
+        System.arraycopy(this.dirtyLines, 0, newBoard.dirtyLines, 0, this.dirtyLines.length);
+        System.arraycopy(this.history, 0, newBoard.history, 0, this.moveCount);
         newBoard.moveCount = this.moveCount;
+        newBoard.hash = this.hash;
         return newBoard;
     }
 }
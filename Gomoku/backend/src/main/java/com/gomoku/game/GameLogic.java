@@ -32,17 +32,27 @@ public class GameLogic {
      * 执行落子并检查游戏结果
      */
     public GameResult executeMove(Board board, int x, int y, PieceColor color) {
+        // 黑棋禁手要在落子前按落子前的局面判定
+        RenjuRules.Forbidden forbidden = RenjuRules.Forbidden.NONE;
+        if (color == PieceColor.BLACK && board.isValidPosition(x, y) && board.isEmpty(x, y)) {
+            forbidden = RenjuRules.check(board, Board.index(x, y));
+        }
+        
         // 放置棋子
         if (!board.placeStone(x, y, color)) {
             return GameResult.INVALID_MOVE;
         }
         
+        // 黑棋禁手判负（同时成五时五连优先，判定结果为NONE）
+        if (forbidden == RenjuRules.Forbidden.OVERLINE) {
+            return GameResult.BLACK_LOSE_OVERLINE;
+        }
+        if (forbidden != RenjuRules.Forbidden.NONE) {
+            return GameResult.BLACK_LOSE_FORBIDDEN;
+        }
+        
         // 检查是否获胜
         if (board.checkWin(x, y)) {
-            // 黑棋长连判负
-            if (color == PieceColor.BLACK && board.isOverline(x, y)) {
-                return GameResult.BLACK_LOSE_OVERLINE;
-            }
             return color == PieceColor.BLACK ? GameResult.BLACK_WIN : GameResult.WHITE_WIN;
         }
         
@@ -70,6 +80,7 @@ public class GameLogic {
         WHITE_WIN,            // 白棋获胜
         DRAW,                 // 平局
         BLACK_LOSE_OVERLINE,  // 黑棋长连判负
+        BLACK_LOSE_FORBIDDEN, // 黑棋三三、四四禁手判负
         INVALID_MOVE          // 非法落子
     }
 }
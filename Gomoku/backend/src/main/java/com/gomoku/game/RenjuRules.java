@@ -0,0 +1,243 @@
+package com.gomoku.game;
+
+import com.gomoku.enums.PieceColor;
+
+/**
+ * 连珠禁手判定：黑棋不能走三三、四四和长连，白棋没有禁手
+ *
+ * 每个方向取以落子点为中心、左右各5格的11格窗口（白子和棋盘外都视为阻挡），
+ * 中心以外10格的状态按三进制编码，查预先算好的棋形表即可得到该方向的五连、长连、
+ * 四的个数和活三，一次判定只需4次查表。
+ * 活三是指再走一步能成活四的三，而成活四的那一步本身不能是禁手，
+ * 因此出现两个以上活三时还要递归检查这些点；这一步在棋盘副本上进行，判定不会修改传入的棋盘。
+ * 黑棋同时形成五连时五连优先，不算禁手。
+ */
+public final class RenjuRules {
+
+    /**
+     * 禁手类型
+     */
+    public enum Forbidden {
+        NONE,
+        DOUBLE_THREE,
+        DOUBLE_FOUR,
+        OVERLINE
+    }
+
+    // 窗口半径：判断五连是否恰好5子要看到两端外侧的一格
+    private static final int RADIUS = 5;
+    private static final int WINDOW = RADIUS * 2 + 1;
+    private static final int WINDOW_MASK = (1 << WINDOW) - 1;
+
+    // 表项：五连 | 长连 | 四的个数（2位）| 活三 | 活三成活四的点（窗口内位序，11位）
+    private static final int FIVE = 1;
+    private static final int OVERLINE = 1 << 1;
+    private static final int FOURS_SHIFT = 2;
+    private static final int THREE = 1 << 4;
+    private static final int THREE_POINTS_SHIFT = 5;
+
+    // 递归检查活三的最大深度，超过后按真活三处理
+    private static final int MAX_DEPTH = 4;
+
+    // 10位二进制掩码按位转成三进制数，黑子记1、阻挡记2，两者相加即窗口下标
+    private static final int[] TERNARY = new int[1 << (WINDOW - 1)];
+    private static final int[] PATTERNS = new int[59049];
+
+    static {
+        for (int mask = 0; mask < TERNARY.length; mask++) {
+            int value = 0;
+            for (int i = WINDOW - 2; i >= 0; i--) {
+                value = value * 3 + ((mask >>> i) & 1);
+            }
+            TERNARY[mask] = value;
+        }
+        for (int index = 0; index < PATTERNS.length; index++) {
+            int black = 0;
+            int blocked = 0;
+            int rest = index;
+            for (int i = 0; i < WINDOW - 1; i++) {
+                int state = rest % 3;
+                rest /= 3;
+                if (state == 1) {
+                    black |= 1 << i;
+                } else if (state == 2) {
+                    blocked |= 1 << i;
+                }
+            }
+            PATTERNS[index] = analyse(expand(black) | 1 << RADIUS, expand(blocked));
+        }
+    }
+
+    private RenjuRules() {
+    }
+
+    /**
+     * 黑棋在空点落子是否为禁手
+     */
+    public static boolean isForbidden(Board board, int cell) {
+        return check(board, cell) != Forbidden.NONE;
+    }
+
+    /**
+     * 判定黑棋在空点落子的禁手类型，形成五连时返回NONE
+     */
+    public static Forbidden check(Board board, int cell) {
+        return check(board, cell, 0, null);
+    }
+
+    /**
+     * 该方在格子落子后是否获胜，格子为空时按落子后计算：白棋五连及以上即胜，
+     * 黑棋只要有一个方向恰好五连即胜，其他方向同时长连也不影响（与禁手判定中五连优先一致）
+     */
+    public static boolean isWin(Board board, int cell, int stone) {
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            int run = Board.runLength(board.getLineThrough(stone, d, cell), Board.bitOf(d, cell));
+            if (run == 5 || (run > 5 && stone == Board.WHITE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param scratch 递归时使用的棋盘副本（已落下上层的子），顶层为null
+     */
+    private static Forbidden check(Board board, int cell, int depth, Board scratch) {
+        int fours = 0;
+        int threes = 0;
+        boolean overline = false;
+        int[] entries = new int[Board.DIRECTION_COUNT];
+        for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+            int entry = PATTERNS[windowIndex(board, d, cell)];
+            if ((entry & FIVE) != 0) {
+                return Forbidden.NONE;
+            }
+            entries[d] = entry;
+            overline |= (entry & OVERLINE) != 0;
+            fours += (entry >>> FOURS_SHIFT) & 0x3;
+            if ((entry & THREE) != 0) {
+                threes++;
+            }
+        }
+        if (overline) {
+            return Forbidden.OVERLINE;
+        }
+        if (fours >= 2) {
+            return Forbidden.DOUBLE_FOUR;
+        }
+        if (threes < 2) {
+            return Forbidden.NONE;
+        }
+        if (depth >= MAX_DEPTH) {
+            return Forbidden.DOUBLE_THREE;
+        }
+
+        // 复核活三：成活四的点中至少有一个不是禁手才算真活三
+        Board next = scratch != null ? scratch : board.copy();
+        next.placeStone(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, PieceColor.BLACK);
+        try {
+            int realThrees = 0;
+            for (int d = 0; d < Board.DIRECTION_COUNT && realThrees < 2; d++) {
+                if ((entries[d] & THREE) != 0 && hasPlayableFourPoint(next, d, cell, entries[d], depth)) {
+                    realThrees++;
+                }
+            }
+            return realThrees >= 2 ? Forbidden.DOUBLE_THREE : Forbidden.NONE;
+        } finally {
+            next.undoStone();
+        }
+    }
+
+    private static boolean hasPlayableFourPoint(Board board, int direction, int cell, int entry, int depth) {
+        int line = Board.lineOf(direction, cell);
+        int origin = Board.bitOf(direction, cell) - RADIUS;
+        for (int points = entry >>> THREE_POINTS_SHIFT; points != 0; points &= points - 1) {
+            int target = Board.lineCell(line, origin + Integer.numberOfTrailingZeros(points));
+            if (check(board, target, depth + 1, board) == Forbidden.NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 取出以格子为中心的窗口（不含中心）在表中的下标
+     */
+    private static int windowIndex(Board board, int direction, int cell) {
+        int line = Board.lineOf(direction, cell);
+        int bit = Board.bitOf(direction, cell);
+        int black = board.getLine(Board.BLACK, line);
+        int open = Board.lineMask(line) & ~board.getLine(Board.WHITE, line);
+        int blackWindow = ((black << RADIUS) >>> bit) & WINDOW_MASK;
+        int blockedWindow = ~((open << RADIUS) >>> bit) & WINDOW_MASK;
+        return TERNARY[compress(blackWindow)] + 2 * TERNARY[compress(blockedWindow)];
+    }
+
+    /**
+     * 11格窗口去掉中心位，压缩成10位
+     */
+    private static int compress(int window) {
+        return (window & ((1 << RADIUS) - 1)) | (window >>> (RADIUS + 1)) << RADIUS;
+    }
+
+    /**
+     * 10位展开为11格窗口，中心位留空
+     */
+    private static int expand(int bits) {
+        return (bits & ((1 << RADIUS) - 1)) | (bits >>> RADIUS) << (RADIUS + 1);
+    }
+
+    /**
+     * 单个方向的棋形（black 已包含中心）
+     */
+    private static int analyse(int black, int blocked) {
+        int run = Board.runLength(black, RADIUS);
+        if (run == 5) {
+            return FIVE;
+        }
+        if (run > 5) {
+            return OVERLINE;
+        }
+        int empty = ~(black | blocked) & WINDOW_MASK;
+
+        int fivePoints = fivePoints(black, empty);
+        if (fivePoints != 0) {
+            return fourCount(fivePoints) << FOURS_SHIFT;
+        }
+
+        // 活三：再走一步能形成活四（两端都能恰好成五的四）的点
+        int threePoints = 0;
+        for (int rest = empty; rest != 0; rest &= rest - 1) {
+            int point = rest & -rest;
+            if (isStraightFour(fivePoints(black | point, empty & ~point))) {
+                threePoints |= point;
+            }
+        }
+        return threePoints != 0 ? THREE | threePoints << THREE_POINTS_SHIFT : 0;
+    }
+
+    /**
+     * 落子后能与中心连成恰好五子的空点
+     */
+    private static int fivePoints(int black, int empty) {
+        int points = 0;
+        for (int rest = empty; rest != 0; rest &= rest - 1) {
+            int point = rest & -rest;
+            if (Board.runLength(black | point, RADIUS) == 5) {
+                points |= point;
+            }
+        }
+        return points;
+    }
+
+    /**
+     * 四的个数：相距5格的两个成五点是同一个活四的两端，只算一个四
+     */
+    private static int fourCount(int fivePoints) {
+        return Integer.bitCount(fivePoints) - Integer.bitCount(fivePoints & (fivePoints >>> 5));
+    }
+
+    private static boolean isStraightFour(int fivePoints) {
+        return (fivePoints & (fivePoints >>> 5)) != 0;
+    }
+}
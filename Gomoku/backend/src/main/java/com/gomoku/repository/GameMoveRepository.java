@@ -2,6 +2,8 @@ package com.gomoku.repository;
 
 import com.gomoku.entity.GameMove;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -14,6 +16,17 @@ public interface GameMoveRepository extends JpaRepository<GameMove, Long> {
      */
     List<GameMove> findByGameIdOrderByMoveNumberAsc(Long gameId);
     
+    /**
+     * 查找对局中第moveNumber步之后的棋步
+     */
+    List<GameMove> findByGameIdAndMoveNumberGreaterThanOrderByMoveNumberAsc(Long gameId, Integer moveNumber);
+    
+    /**
+     * 对局中已保存的步数编号
+     */
+    @Query("SELECT m.moveNumber FROM GameMove m WHERE m.gameId = :gameId")
+    List<Integer> findMoveNumbersByGameId(@Param("gameId") Long gameId);
+    
     /**
      * 统计对局中的棋步数
      */
@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +21,13 @@ public interface GameRepository extends JpaRepository<Game, Long> {
      */
     List<Game> findByStatus(GameStatus status);
     
+    /**
+     * 查找进行中、在截止时间之前开始且此后没有任何落子的对局
+     */
+    @Query("SELECT g FROM Game g WHERE g.status = 'PLAYING' AND g.startedAt < :cutoff " +
+            "AND NOT EXISTS (SELECT m FROM GameMove m WHERE m.gameId = g.gameId AND m.moveTime >= :cutoff)")
+    List<Game> findIdleGames(@Param("cutoff") LocalDateTime cutoff);
+    
     /**
      * 查找玩家参与的所有对局（分页）
      */
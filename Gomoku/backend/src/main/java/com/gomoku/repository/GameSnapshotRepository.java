@@ -0,0 +1,9 @@
+package com.gomoku.repository;
+
+import com.gomoku.entity.GameSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GameSnapshotRepository extends JpaRepository<GameSnapshot, Long> {
+}
@@ -0,0 +1,172 @@
+package com.gomoku.service;
+
+import com.gomoku.config.GameProperties;
+import com.gomoku.entity.Game;
+import com.gomoku.game.Board;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进行中对局的棋盘缓存
+ *
+ * 容量有上限，超出时淘汰最久未访问的对局；长时间无人访问的对局也会被定期淘汰。
+ * 淘汰只是丢掉内存中的棋盘：落子都已交给棋谱日志、快照定期保存，下次访问时经快照加回放透明恢复，
+ * 因此在任何线程上淘汰都是安全的。读取和恢复只在对局所属的命令线程上进行。
+ * 读取时间只用于淘汰；判断对局是否空闲看的是最后落子时间，它与棋盘分开记录，棋盘被淘汰后仍然保留，
+ * 轮询棋盘、启动预热等读取不会让无人落子的对局看起来仍然活跃。
+ */
+@Component
+@Slf4j
+public class ActiveBoardCache {
+
+    private final GameSnapshotStore gameSnapshots;
+    private final int maxEntries;
+    private final long idleEvictMs;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    // 最后落子时间（毫秒），对局结束时移除
+    private final Map<Long, Long> lastMoveTimes = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public ActiveBoardCache(GameSnapshotStore gameSnapshots, GameProperties gameProperties) {
+        GameProperties.Cache config = gameProperties.getCache();
+        this.gameSnapshots = gameSnapshots;
+        this.maxEntries = config.getMaxEntries();
+        this.idleEvictMs = config.getIdleEvictMs();
+    }
+
+    /**
+     * 取对局的棋盘，不在缓存中时从快照和棋步恢复并放入缓存
+     */
+    public Board get(Game game) {
+        Entry entry = entries.get(game.getGameId());
+        if (entry != null) {
+            entry.touch();
+            hitCount.incrementAndGet();
+            return entry.board;
+        }
+        Board board = gameSnapshots.load(game);
+        loadCount.incrementAndGet();
+        put(game.getGameId(), board);
+        return board;
+    }
+
+    /**
+     * 已在缓存中的棋盘，不存在时返回null，不触发恢复
+     */
+    public Board getIfPresent(Long gameId) {
+        Entry entry = entries.get(gameId);
+        return entry == null ? null : entry.board;
+    }
+
+    public void put(Long gameId, Board board) {
+        entries.put(gameId, new Entry(board));
+        if (entries.size() > maxEntries) {
+            evictOverflow();
+        }
+    }
+
+    /**
+     * 对局结束时移除棋盘和落子记录
+     */
+    public void remove(Long gameId) {
+        entries.remove(gameId);
+        lastMoveTimes.remove(gameId);
+    }
+
+    /**
+     * 在命令线程上落子（或创建对局）后调用，记录最后落子时间
+     */
+    public void recordMove(Long gameId) {
+        lastMoveTimes.put(gameId, System.currentTimeMillis());
+    }
+
+    /**
+     * 对局在指定时刻之后是否落过子；落子还没写库时只有这里知道
+     */
+    public boolean hasMovedSince(Long gameId, long sinceMillis) {
+        Long lastMove = lastMoveTimes.get(gameId);
+        return lastMove != null && lastMove >= sinceMillis;
+    }
+
+    /**
+     * 淘汰空闲超时的对局
+     */
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictMs;
+        // 这么久之前的落子早已写库，空闲判断可以交给数据库
+        lastMoveTimes.values().removeIf(lastMove -> lastMove < cutoff);
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().lastAccess < cutoff) {
+                evictionCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 超出容量时一次淘汰到容量的90%，避免每次放入都要扫描
+     */
+    private synchronized void evictOverflow() {
+        int excess = entries.size() - maxEntries * 9 / 10;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<Long, Entry>> oldest = new ArrayList<>(entries.entrySet());
+        oldest.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        for (int i = 0; i < excess && i < oldest.size(); i++) {
+            Map.Entry<Long, Entry> e = oldest.get(i);
+            if (entries.remove(e.getKey(), e.getValue())) {
+                evictionCount.incrementAndGet();
+            }
+        }
+        log.debug("棋盘缓存超出容量，淘汰最久未访问的对局: count={}", excess);
+    }
+
+    /**
+     * 当前驻留内存的对局数
+     */
+    public int getResidentCount() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * 从快照和棋步恢复棋盘的次数
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private static final class Entry {
+
+        private final Board board;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Entry(Board board) {
+            this.board = board;
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.gomoku.service;
+
+import com.gomoku.config.GameProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 对局命令执行器：每局对局由一个单线程“actor”独占
+ *
+ * 按对局ID分片到固定数量的单线程执行器上，同一对局的落子、认输、AI应手等命令总是在同一个线程上
+ * 按提交顺序执行，棋盘只会被这一个线程修改，既不需要对棋盘加锁，也不需要数据库行锁；
+ * 不同对局分散在各个分片上并行执行，吞吐量随核数线性增长。
+ * 已在对应分片线程上时直接执行，命令中可以再提交同一对局的命令而不会死锁。
+ */
+@Component
+@Slf4j
+public class GameActorExecutor {
+
+    // 当前线程所属的分片，非分片线程为null
+    private static final ThreadLocal<Integer> CURRENT_STRIPE = new ThreadLocal<>();
+
+    private final ExecutorService[] stripes;
+
+    public GameActorExecutor(GameProperties gameProperties) {
+        int threads = gameProperties.getActor().resolveThreads();
+        this.stripes = new ExecutorService[threads];
+        for (int i = 0; i < threads; i++) {
+            int stripe = i;
+            stripes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(() -> {
+                    CURRENT_STRIPE.set(stripe);
+                    runnable.run();
+                }, "game-actor-" + stripe);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * 在对局所属线程上执行命令并等待结果，命令抛出的运行时异常原样抛给调用方
+     */
+    public <T> T call(Long gameId, Callable<T> command) {
+        int stripe = stripeOf(gameId);
+        try {
+            if (Integer.valueOf(stripe).equals(CURRENT_STRIPE.get())) {
+                return command.call();
+            }
+            Future<T> future = stripes[stripe].submit(command);
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException("对局命令执行失败", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("对局命令被中断", e);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("对局命令执行失败", e);
+        }
+    }
+
+    /**
+     * 在对局所属线程上执行命令并等待完成
+     */
+    public void run(Long gameId, Runnable command) {
+        call(gameId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * 把命令排入对局所属线程的队列后立即返回，命令失败只记录日志
+     */
+    public void execute(Long gameId, Runnable command) {
+        stripes[stripeOf(gameId)].execute(() -> {
+            try {
+                command.run();
+            } catch (Exception e) {
+                log.error("对局命令执行失败: gameId={}", gameId, e);
+            }
+        });
+    }
+
+    private int stripeOf(Long gameId) {
+        return Math.floorMod(Long.hashCode(gameId), stripes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService stripe : stripes) {
+            stripe.shutdownNow();
+        }
+    }
+}
@@ -1,42 +1,95 @@
 package com.gomoku.service;
 
 import com.gomoku.ai.AIEngine;
+import com.gomoku.ai.AIMoveExecutor;
+import com.gomoku.config.GameProperties;
 import com.gomoku.entity.Game;
 import com.gomoku.entity.GameMove;
 import com.gomoku.enums.*;
 import com.gomoku.game.Board;
 import com.gomoku.game.GameLogic;
-import com.gomoku.repository.GameMoveRepository;
 import com.gomoku.repository.GameRepository;
-import lombok.RequiredArgsConstructor;
+import com.gomoku.websocket.WebSocketMessage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 对局服务
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class GameService {
     
     private final GameRepository gameRepository;
-    private final GameMoveRepository gameMoveRepository;
     private final UserService userService;
     private final ScoreService scoreService;
     private final AIEngine aiEngine;
     private final GameLogic gameLogic;
+    private final AIMoveExecutor aiMoveExecutor;
+    private final SimpMessagingTemplate messagingTemplate;
+    // 命令都在对局的命令线程上执行，线程上没有外层事务，每条命令各自开启事务
+    private final TransactionTemplate transactionTemplate;
+    private final GameActorExecutor gameActors;
+    private final MoveJournal moveJournal;
+    private final GameSnapshotStore gameSnapshots;
+    // 进行中对局的棋盘缓存，棋盘只在对局所属的命令线程上读写
+    private final ActiveBoardCache activeBoards;
+    private final GameProperties gameProperties;
     
-    // 内存中的对局状态缓存
-    private final Map<Long, Board> activeBoardsCache = new ConcurrentHashMap<>();
+    public GameService(GameRepository gameRepository, UserService userService, ScoreService scoreService,
+                       AIEngine aiEngine, GameLogic gameLogic, AIMoveExecutor aiMoveExecutor,
+                       SimpMessagingTemplate messagingTemplate, PlatformTransactionManager transactionManager,
+                       GameActorExecutor gameActors, MoveJournal moveJournal, GameSnapshotStore gameSnapshots,
+                       ActiveBoardCache activeBoards, GameProperties gameProperties) {
+        this.gameRepository = gameRepository;
+        this.userService = userService;
+        this.scoreService = scoreService;
+        this.aiEngine = aiEngine;
+        this.gameLogic = gameLogic;
+        this.aiMoveExecutor = aiMoveExecutor;
+        this.messagingTemplate = messagingTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        this.gameActors = gameActors;
+        this.moveJournal = moveJournal;
+        this.gameSnapshots = gameSnapshots;
+        this.activeBoards = activeBoards;
+        this.gameProperties = gameProperties;
+    }
+    
+    /**
+     * 启动完成后在后台恢复所有进行中对局的棋盘，避免发布后每局第一次请求都要从数据库恢复
+     * 恢复在各对局的命令线程上进行，与玩家请求互不干扰，不同对局并行恢复
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpActiveBoards() {
+        if (!gameProperties.getSnapshot().isWarmUp()) {
+            return;
+        }
+        // 超出缓存容量的部分预热了也会被淘汰
+        List<Game> games = gameRepository.findByStatus(GameStatus.PLAYING);
+        int count = Math.min(games.size(), gameProperties.getCache().getMaxEntries());
+        for (Game game : games.subList(0, count)) {
+            gameActors.execute(game.getGameId(), () -> activeBoards.get(game));
+        }
+        log.info("后台预热进行中对局的棋盘: count={}", count);
+    }
     
     /**
      * 创建人机对战
@@ -68,27 +121,15 @@ public class GameService {
         
         // 创建棋盘缓存
         Board board = new Board();
-        activeBoardsCache.put(game.getGameId(), board);
+        activeBoards.put(game.getGameId(), board);
+        activeBoards.recordMove(game.getGameId());
         
         log.info("创建人机对战: gameId={}, playerId={}, difficulty={}, playerColor={}", 
                 game.getGameId(), playerId, difficulty, playerIsBlack ? "BLACK" : "WHITE");
         
-        // 如果AI执黑先手，让AI先落子
+        // 如果AI执黑先手，让AI先落子（异步，结果通过WebSocket推送）
         if (!playerIsBlack) {
-            AIEngine.Position aiMove = aiEngine.calculateNextMove(board, difficulty, PieceColor.BLACK);
-            if (aiMove != null) {
-                gameLogic.executeMove(board, aiMove.getX(), aiMove.getY(), PieceColor.BLACK);
-                // 保存AI落子记录
-                GameMove move = GameMove.builder()
-                        .gameId(game.getGameId())
-                        .moveNumber(board.getMoveCount())
-                        .playerId(AI_PLAYER_ID)
-                        .positionX(aiMove.getX())
-                        .positionY(aiMove.getY())
-                        .build();
-                gameMoveRepository.save(move);
-                log.info("AI先手落子: gameId={}, position=({}, {})", game.getGameId(), aiMove.getX(), aiMove.getY());
-            }
+            scheduleAIMove(game.getGameId(), difficulty, board);
         }
         
         return game;
@@ -108,7 +149,8 @@ public class GameService {
                 .build();
         
         game = gameRepository.save(game);
-        activeBoardsCache.put(game.getGameId(), new Board());
+        activeBoards.put(game.getGameId(), new Board());
+        activeBoards.recordMove(game.getGameId());
         
         log.info("创建双人对战: gameId={}, blackPlayer={}, whitePlayer={}", 
                 game.getGameId(), blackPlayerId, whitePlayerId);
@@ -118,9 +160,13 @@ public class GameService {
     
     /**
      * 玩家落子
+     * 在对局所属的命令线程上执行，同一对局的并发请求（HTTP与WebSocket、重复点击）按到达顺序逐个处理
      */
-    @Transactional
     public GameMoveResult makeMove(Long gameId, Long playerId, int x, int y) {
+        return gameActors.call(gameId, () -> inTransaction(status -> doMakeMove(gameId, playerId, x, y)));
+    }
+    
+    private GameMoveResult doMakeMove(Long gameId, Long playerId, int x, int y) {
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new RuntimeException("对局不存在"));
         
@@ -128,7 +174,7 @@ public class GameService {
             throw new RuntimeException("对局已结束");
         }
         
-        Board board = activeBoardsCache.computeIfAbsent(gameId, id -> loadBoardFromDatabase(id));
+        Board board = activeBoards.get(game);
         
         // 验证是否轮到该玩家
         PieceColor currentTurn = gameLogic.getNextTurn(board.getMoveCount());
@@ -143,7 +189,12 @@ public class GameService {
             throw new RuntimeException("非法落子");
         }
         
-        // 保存落子记录
+        // 对方已落子，停止AI的后台思考；是否猜中由AI下一步计算时判断
+        if (game.getGameMode() == GameMode.PVE) {
+            aiEngine.stopPondering(gameId);
+        }
+        
+        // 保存落子记录（异步批量写库）
         GameMove move = GameMove.builder()
                 .gameId(gameId)
                 .moveNumber(board.getMoveCount())
@@ -151,7 +202,9 @@ public class GameService {
                 .positionX(x)
                 .positionY(y)
                 .build();
-        gameMoveRepository.save(move);
+        moveJournal.append(move);
+        activeBoards.recordMove(gameId);
+        gameSnapshots.record(gameId, board);
         
         GameMoveResult moveResult = new GameMoveResult();
         moveResult.setSuccess(true);
@@ -164,17 +217,16 @@ public class GameService {
             handleGameEnd(game, result, currentTurn);
             moveResult.setGameOver(true);
             moveResult.setWinnerId(game.getWinnerId());
-            activeBoardsCache.remove(gameId);
+            activeBoards.remove(gameId);
+            aiEngine.endGame(gameId);
         } else {
             moveResult.setGameOver(false);
             moveResult.setNextTurn(gameLogic.getNextTurn(board.getMoveCount()));
             
-            // 如果是人机对战且轮到AI
-            if (game.getGameMode() == GameMode.PVE && !moveResult.isGameOver()) {
-                AIEngine.Position aiMove = calculateAIMove(board, game, playerId);
-                if (aiMove != null) {
-                    moveResult.setAiMove(aiMove);
-                }
+            // 如果是人机对战且轮到AI：提交到AI线程池，应手通过 /topic/game/{gameId} 推送
+            if (game.getGameMode() == GameMode.PVE) {
+                scheduleAIMove(gameId, game.getAiDifficulty(), board);
+                moveResult.setAiPending(true);
             }
         }
         
@@ -182,43 +234,149 @@ public class GameService {
     }
     
     /**
-     * 计算AI落子
+     * 安排AI落子
+     * 在当前事务提交后才提交任务，保证AI线程能读到玩家刚保存的落子；
+     * AI线程池已满时在当前线程以中等难度兜底，保证AI总会应手
      */
-    private AIEngine.Position calculateAIMove(Board board, Game game, Long humanPlayerId) {
-        PieceColor aiColor = gameLogic.getNextTurn(board.getMoveCount());
-        AIEngine.Position aiPosition = aiEngine.calculateNextMove(board, game.getAiDifficulty(), aiColor);
+    private void scheduleAIMove(Long gameId, AIDifficulty difficulty, Board board) {
+        Runnable schedule = () -> {
+            // 提交时在当前线程复制棋盘，AI线程只读副本
+            int expectedMoveCount = board.getMoveCount();
+            Board snapshot = board.copy();
+            boolean accepted = aiMoveExecutor.submit(difficulty,
+                    effective -> playAIMove(gameId, effective, snapshot, expectedMoveCount));
+            if (!accepted) {
+                playAIMove(gameId, AIDifficulty.MEDIUM, snapshot, expectedMoveCount);
+            }
+        };
         
-        if (aiPosition != null) {
-            // 执行AI落子
-            GameLogic.GameResult result = gameLogic.executeMove(board, aiPosition.getX(), aiPosition.getY(), aiColor);
-            
-            // 保存AI落子记录
-            Long aiPlayerId = -1L;  // AI的playerId统一为-1L
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule.run();
+                }
+            });
+        } else {
+            schedule.run();
+        }
+    }
+    
+    /**
+     * 计算AI落子，再交给对局所属的命令线程落子并推送给客户端
+     * 搜索在事务外、命令线程外进行，不占用数据库连接，也不阻塞同一分片上其他对局的命令
+     */
+    private void playAIMove(Long gameId, AIDifficulty difficulty, Board snapshot, int expectedMoveCount) {
+        try {
+            PieceColor aiColor = gameLogic.getNextTurn(expectedMoveCount);
+            AIEngine.Position aiPosition = aiEngine.calculateNextMove(snapshot, difficulty, aiColor, gameId);
+            if (aiPosition == null) {
+                return;
+            }
+            gameActors.execute(gameId, () ->
+                    publishAIMove(gameId, difficulty, snapshot, expectedMoveCount, aiColor, aiPosition));
+        } catch (Exception e) {
+            log.error("AI落子失败: gameId={}", gameId, e);
+        }
+    }
+    
+    /**
+     * 在对局所属的命令线程上保存AI落子并推送给客户端
+     */
+    private void publishAIMove(Long gameId, AIDifficulty difficulty, Board snapshot, int expectedMoveCount,
+                               PieceColor aiColor, AIEngine.Position aiPosition) {
+        try {
+            GameMoveResult result = inTransaction(status ->
+                    applyAIMove(gameId, expectedMoveCount, aiColor, aiPosition));
+            if (result == null) {
+                return;
+            }
             
-            GameMove aiMove = GameMove.builder()
-                    .gameId(game.getGameId())
-                    .moveNumber(board.getMoveCount())
-                    .playerId(aiPlayerId)
-                    .positionX(aiPosition.getX())
-                    .positionY(aiPosition.getY())
-                    .build();
-            gameMoveRepository.save(aiMove);
+            // 推送之前开始后台思考，保证玩家应手时停止的是这一次的后台思考
+            if (!result.isGameOver()) {
+                snapshot.placeStone(aiPosition.getX(), aiPosition.getY(), aiColor);
+                aiEngine.startPondering(gameId, snapshot, difficulty, aiColor);
+            }
             
-            // 检查AI落子后的游戏结果
-            if (result != GameLogic.GameResult.CONTINUE) {
-                handleGameEnd(game, result, aiColor);
-                activeBoardsCache.remove(game.getGameId());
+            String destination = "/topic/game/" + gameId;
+            messagingTemplate.convertAndSend(destination,
+                    WebSocketMessage.success(WebSocketMessage.MessageType.AI_MOVE, gameId, result));
+            if (result.isGameOver()) {
+                messagingTemplate.convertAndSend(destination,
+                        WebSocketMessage.success(WebSocketMessage.MessageType.GAME_OVER, gameId, result));
             }
+        } catch (Exception e) {
+            log.error("AI落子失败: gameId={}", gameId, e);
+        }
+    }
+    
+    /**
+     * 执行并保存AI落子
+     * 搜索期间对局已结束（认输等）或棋盘已变化时放弃本次结果，返回null；
+     * 棋盘在搜索期间被缓存淘汰时重新恢复，步数一致即可落子
+     */
+    private GameMoveResult applyAIMove(Long gameId, int expectedMoveCount,
+                                       PieceColor aiColor, AIEngine.Position aiPosition) {
+        Game game = gameRepository.findById(gameId).orElse(null);
+        if (game == null || game.getStatus() != GameStatus.PLAYING) {
+            return null;
         }
         
-        return aiPosition;
+        Board board = activeBoards.get(game);
+        if (board.getMoveCount() != expectedMoveCount) {
+            log.warn("AI落子已过期，放弃: gameId={}", gameId);
+            return null;
+        }
+        GameLogic.GameResult result = gameLogic.executeMove(board, aiPosition.getX(), aiPosition.getY(), aiColor);
+        if (result == GameLogic.GameResult.INVALID_MOVE) {
+            return null;
+        }
+        
+        // 保存AI落子记录（异步批量写库），AI的playerId统一为-1L
+        GameMove aiMove = GameMove.builder()
+                .gameId(gameId)
+                .moveNumber(expectedMoveCount + 1)
+                .playerId(-1L)
+                .positionX(aiPosition.getX())
+                .positionY(aiPosition.getY())
+                .build();
+        moveJournal.append(aiMove);
+        activeBoards.recordMove(gameId);
+        gameSnapshots.record(gameId, board);
+        
+        GameMoveResult moveResult = new GameMoveResult();
+        moveResult.setSuccess(true);
+        moveResult.setX(aiPosition.getX());
+        moveResult.setY(aiPosition.getY());
+        moveResult.setMoveNumber(expectedMoveCount + 1);
+        
+        // 检查AI落子后的游戏结果
+        if (result != GameLogic.GameResult.CONTINUE) {
+            handleGameEnd(game, result, aiColor);
+            moveResult.setGameOver(true);
+            moveResult.setWinnerId(game.getWinnerId());
+            activeBoards.remove(gameId);
+            aiEngine.endGame(gameId);
+        } else {
+            moveResult.setNextTurn(gameLogic.getNextTurn(expectedMoveCount + 1));
+        }
+        
+        log.debug("AI落子: gameId={}, position=({}, {})", gameId, aiPosition.getX(), aiPosition.getY());
+        return moveResult;
     }
     
     /**
      * 玩家认输
+     * 与落子在同一个命令线程上执行，不会与正在处理的落子交错
      */
-    @Transactional
     public void resign(Long gameId, Long playerId) {
+        gameActors.run(gameId, () -> inTransaction(status -> {
+            doResign(gameId, playerId);
+            return null;
+        }));
+    }
+    
+    private void doResign(Long gameId, Long playerId) {
         Game game = gameRepository.findById(gameId)
                 .orElseThrow(() -> new RuntimeException("对局不存在"));
         
@@ -243,11 +401,89 @@ public class GameService {
             updateScoresAfterGame(game);
         }
         
-        activeBoardsCache.remove(gameId);
+        activeBoards.remove(gameId);
+        aiEngine.endGame(gameId);
         
         log.info("玩家认输: gameId={}, resignPlayerId={}, winnerId={}", gameId, playerId, winnerId);
     }
     
+    /**
+     * 结束长时间没有落子的对局，返回结束的对局数
+     * 轮到玩家落子时按超时判该玩家负；轮到AI应手时（AI任务丢失，例如服务重启）按断线结束，不计胜负
+     */
+    public int expireIdleGames(long idleTimeoutMs) {
+        long cutoffMillis = System.currentTimeMillis() - idleTimeoutMs;
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(idleTimeoutMs));
+        int expired = 0;
+        for (Game game : gameRepository.findIdleGames(cutoff)) {
+            Long gameId = game.getGameId();
+            // 落子还没写库时数据库里看不到，以内存中的最后落子时间为准；只读取棋盘不算活跃
+            if (activeBoards.hasMovedSince(gameId, cutoffMillis)) {
+                continue;
+            }
+            try {
+                GameMoveResult result = gameActors.call(gameId,
+                        () -> inTransaction(status -> expireGame(gameId, cutoffMillis)));
+                if (result != null) {
+                    expired++;
+                    messagingTemplate.convertAndSend("/topic/game/" + gameId,
+                            WebSocketMessage.success(WebSocketMessage.MessageType.GAME_OVER, gameId, result));
+                }
+            } catch (Exception e) {
+                log.warn("结束空闲对局失败: gameId={}", gameId, e);
+            }
+        }
+        return expired;
+    }
+    
+    private GameMoveResult expireGame(Long gameId, long cutoffMillis) {
+        Game game = gameRepository.findById(gameId).orElse(null);
+        if (game == null || game.getStatus() != GameStatus.PLAYING || activeBoards.hasMovedSince(gameId, cutoffMillis)) {
+            return null;
+        }
+        
+        // 只为判断轮到谁，不把棋盘放回缓存
+        Board board = activeBoards.getIfPresent(gameId);
+        int moveCount = board != null ? board.getMoveCount() : gameSnapshots.load(game).getMoveCount();
+        PieceColor currentTurn = gameLogic.getNextTurn(moveCount);
+        Long currentPlayerId = currentTurn == PieceColor.BLACK ? game.getBlackPlayerId() : game.getWhitePlayerId();
+        
+        game.setStatus(GameStatus.FINISHED);
+        game.setEndedAt(LocalDateTime.now());
+        if (Long.valueOf(-1L).equals(currentPlayerId)) {
+            game.setEndReason(EndReason.DISCONNECT);
+            game.setWinnerId(null);
+        } else {
+            game.setEndReason(EndReason.TIMEOUT);
+            game.setWinnerId(currentTurn == PieceColor.BLACK ? game.getWhitePlayerId() : game.getBlackPlayerId());
+        }
+        gameRepository.save(game);
+        
+        // 更新积分（仅双人对战且有胜负）
+        if (game.getGameMode() == GameMode.PVP && game.getWinnerId() != null) {
+            updateScoresAfterGame(game);
+        }
+        
+        activeBoards.remove(gameId);
+        aiEngine.endGame(gameId);
+        
+        log.info("空闲对局已结束: gameId={}, endReason={}, winnerId={}", gameId, game.getEndReason(), game.getWinnerId());
+        
+        GameMoveResult result = new GameMoveResult();
+        result.setSuccess(true);
+        result.setMoveNumber(moveCount);
+        result.setGameOver(true);
+        result.setWinnerId(game.getWinnerId());
+        return result;
+    }
+    
+    /**
+     * 在当前线程上开启事务执行；只在对局的命令线程上调用，那里没有外层事务可以加入
+     */
+    private <T> T inTransaction(TransactionCallback<T> action) {
+        return transactionTemplate.execute(action);
+    }
+    
     /**
      * 处理游戏结束
      */
@@ -264,6 +500,7 @@ public class GameService {
                 game.setWinnerId(game.getWhitePlayerId());
                 break;
             case BLACK_LOSE_OVERLINE:
+            case BLACK_LOSE_FORBIDDEN:
                 game.setWinnerId(game.getWhitePlayerId());
                 break;
             case DRAW:
@@ -328,29 +565,6 @@ public class GameService {
         }
     }
     
-    /**
-     * 从数据库加载棋盘状态
-     */
-    private Board loadBoardFromDatabase(Long gameId) {
-        Board board = new Board();
-        List<GameMove> moves = gameMoveRepository.findByGameIdOrderByMoveNumberAsc(gameId);
-        
-        for (GameMove move : moves) {
-            Game game = gameRepository.findById(gameId).orElseThrow();
-            PieceColor color;
-            if (move.getPlayerId() == -1L) {
-                // AI玩家，根据当前棋盘状态判断颜色
-                color = game.getBlackPlayerId() == -1L ? PieceColor.BLACK : PieceColor.WHITE;
-            } else {
-                color = game.getBlackPlayerId().equals(move.getPlayerId()) 
-                        ? PieceColor.BLACK 
-                        : PieceColor.WHITE;
-            }
-            board.placeStone(move.getPositionX(), move.getPositionY(), color);
-        }
-        
-        return board;
-    }
     
     /**
      * 获取对局详情
@@ -371,15 +585,21 @@ public class GameService {
      * 获取棋谱
      */
     public List<GameMove> getGameMoves(Long gameId) {
-        return gameMoveRepository.findByGameIdOrderByMoveNumberAsc(gameId);
+        return moveJournal.findMoves(gameId);
     }
     
     /**
      * 获取棋盘状态
      */
     public BoardState getBoardState(Long gameId) {
+        // 棋盘由命令线程修改，读取也放到同一线程上，保证拿到的是某一步之后的完整状态
+        return gameActors.call(gameId, () -> readBoardState(gameId));
+    }
+    
+    private BoardState readBoardState(Long gameId) {
         Game game = getGame(gameId);
-        Board board = activeBoardsCache.computeIfAbsent(gameId, id -> loadBoardFromDatabase(id));
+        // 已结束的对局不再放入缓存
+        Board board = game.getStatus() == GameStatus.PLAYING ? activeBoards.get(game) : gameSnapshots.load(game);
         List<GameMove> moves = getGameMoves(gameId);
         
         BoardState state = new BoardState();
@@ -418,6 +638,7 @@ public class GameService {
         private boolean gameOver;
         private Long winnerId;
         private PieceColor nextTurn;
-        private AIEngine.Position aiMove;
+        // 人机对战中AI正在思考，应手稍后通过WebSocket推送
+        private boolean aiPending;
     }
 }
@@ -0,0 +1,149 @@
+package com.gomoku.service;
+
+import com.gomoku.config.GameProperties;
+import com.gomoku.entity.Game;
+import com.gomoku.entity.GameMove;
+import com.gomoku.entity.GameSnapshot;
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import com.gomoku.repository.GameSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对局棋盘快照
+ *
+ * 对局状态由棋步事件流（game_move）加终局事件（对局表的结束原因）组成，每隔若干步把棋盘保存为一份快照。
+ * 恢复棋盘时读一次快照，只回放快照之后的几步，而不是从第一步开始逐步回放。
+ * 快照在后台线程写入，同一对局尚未写入的旧快照直接被新快照覆盖；快照只是加速手段，写入失败时恢复退化为完整回放。
+ * 快照要等它包含的棋步都由棋谱日志写库之后才写入：否则崩溃后快照已在库中而棋步丢失，
+ * 恢复出的棋盘与game_move不一致，之后的步数也会接不上。
+ */
+@Component
+@Slf4j
+public class GameSnapshotStore {
+
+    private final GameSnapshotRepository snapshotRepository;
+    private final MoveJournal moveJournal;
+    private final int interval;
+    // 棋步尚未写库时，隔多久再检查一次
+    private final long retryDelayMs;
+
+    private final ScheduledExecutorService writer;
+    // 等待写入的最新快照
+    private final Map<Long, GameSnapshot> pending = new ConcurrentHashMap<>();
+
+    public GameSnapshotStore(GameSnapshotRepository snapshotRepository, MoveJournal moveJournal,
+                             GameProperties gameProperties) {
+        this.snapshotRepository = snapshotRepository;
+        this.moveJournal = moveJournal;
+        this.interval = gameProperties.getSnapshot().getInterval();
+        this.retryDelayMs = gameProperties.getJournal().getFlushIntervalMs();
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 落子后调用，每隔 interval 步保存一次快照；棋盘在调用线程上编码，之后不再访问
+     */
+    public void record(Long gameId, Board board) {
+        int moveCount = board.getMoveCount();
+        if (interval <= 0 || moveCount == 0 || moveCount % interval != 0) {
+            return;
+        }
+        GameSnapshot snapshot = GameSnapshot.builder()
+                .gameId(gameId)
+                .moveCount(moveCount)
+                .moves(board.toMoveBytes())
+                .build();
+        if (pending.put(gameId, snapshot) == null) {
+            writer.execute(() -> write(gameId));
+        }
+    }
+
+    private void write(Long gameId) {
+        GameSnapshot snapshot = pending.get(gameId);
+        if (snapshot == null) {
+            return;
+        }
+        if (!moveJournal.isFlushedThrough(gameId, snapshot.getMoveCount())) {
+            if (!writer.isShutdown()) {
+                writer.schedule(() -> write(gameId), retryDelayMs, TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        if (!pending.remove(gameId, snapshot)) {
+            // 检查期间来了更新的快照，它没有另排写入任务，由这里接着处理
+            writer.execute(() -> write(gameId));
+            return;
+        }
+        try {
+            snapshotRepository.save(snapshot);
+        } catch (Exception e) {
+            log.warn("保存棋盘快照失败: gameId={}, moveCount={}", gameId, snapshot.getMoveCount(), e);
+        }
+    }
+
+    /**
+     * 恢复对局棋盘：最新快照加上之后的棋步
+     */
+    public Board load(Game game) {
+        Long gameId = game.getGameId();
+        GameSnapshot snapshot = pending.get(gameId);
+        if (snapshot == null) {
+            snapshot = snapshotRepository.findById(gameId).orElse(null);
+        }
+
+        Board board;
+        int fromMove = 0;
+        if (snapshot != null) {
+            try {
+                board = Board.fromMoveBytes(snapshot.getMoves());
+                fromMove = snapshot.getMoveCount();
+            } catch (IllegalArgumentException e) {
+                log.warn("棋盘快照损坏，改为完整回放: gameId={}", gameId, e);
+                board = new Board();
+            }
+        } else {
+            board = new Board();
+        }
+
+        List<GameMove> moves = moveJournal.findMoves(gameId, fromMove);
+        for (GameMove move : moves) {
+            PieceColor color;
+            if (move.getPlayerId() == -1L) {
+                // AI玩家，根据对局中AI执黑还是执白判断颜色
+                color = game.getBlackPlayerId() == -1L ? PieceColor.BLACK : PieceColor.WHITE;
+            } else {
+                color = game.getBlackPlayerId().equals(move.getPlayerId())
+                        ? PieceColor.BLACK
+                        : PieceColor.WHITE;
+            }
+            board.placeStone(move.getPositionX(), move.getPositionY(), color);
+        }
+
+        log.debug("恢复对局棋盘: gameId={}, snapshotMoves={}, replayedMoves={}", gameId, fromMove, moves.size());
+        return board;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.gomoku.service;
+
+import com.gomoku.config.GameProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 定期清理空闲对局：淘汰长时间无人访问的棋盘，结束长时间没有落子的对局，并输出棋盘缓存指标
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdleGameReaper {
+
+    private final GameService gameService;
+    private final ActiveBoardCache activeBoards;
+    private final GameProperties gameProperties;
+
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    @Scheduled(fixedDelayString = "${gomoku.game.reaper.interval-ms:60000}",
+            initialDelayString = "${gomoku.game.reaper.interval-ms:60000}")
+    public void sweep() {
+        activeBoards.evictIdle();
+        GameProperties.Reaper config = gameProperties.getReaper();
+        int expired = config.isEnabled() ? gameService.expireIdleGames(config.getIdleTimeoutMs()) : 0;
+        expiredCount.addAndGet(expired);
+
+        if (expired > 0) {
+            log.info("空闲对局清理: expired={}, resident={}, hits={}, loads={}, evictions={}",
+                    expired, activeBoards.getResidentCount(), activeBoards.getHitCount(),
+                    activeBoards.getLoadCount(), activeBoards.getEvictionCount());
+        } else {
+            log.debug("空闲对局清理: resident={}, hits={}, loads={}, evictions={}",
+                    activeBoards.getResidentCount(), activeBoards.getHitCount(),
+                    activeBoards.getLoadCount(), activeBoards.getEvictionCount());
+        }
+    }
+
+    /**
+     * 累计因空闲而结束的对局数
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+}
@@ -0,0 +1,338 @@
+package com.gomoku.service;
+
+import com.gomoku.config.GameProperties;
+import com.gomoku.entity.GameMove;
+import com.gomoku.repository.GameMoveRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 棋谱异步批量写入（write-behind）
+ *
+ * 落子时只把棋步放进内存队列，由后台线程按条数或时间攒批，在一个事务里批量插入，
+ * 落子的响应时间不再包含数据库往返。
+ * 写库失败或队列已满时，棋步追加到本地兜底文件并刷盘，数据库恢复后补写（已存在的步跳过）并删除文件。
+ * 读取棋谱时合并尚未写库的棋步，同一对局总能读到自己刚下的棋。
+ */
+@Component
+@Slf4j
+public class MoveJournal {
+
+    // 补写兜底文件失败后的重试间隔
+    private static final long RETRY_INTERVAL_MS = 5000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private final GameMoveRepository gameMoveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final Path fallbackFile;
+
+    private final BlockingQueue<GameMove> queue;
+    // 尚未确认写库的棋步（队列中、写库中、兜底文件中），按对局分组，列表只在compute中访问
+    private final Map<Long, List<GameMove>> unflushed = new ConcurrentHashMap<>();
+
+    private final Object fileLock = new Object();
+    private volatile boolean hasFallback;
+    private long nextReplayAt;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final AtomicLong flushedCount = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+
+    public MoveJournal(GameMoveRepository gameMoveRepository, PlatformTransactionManager transactionManager,
+                       GameProperties gameProperties) {
+        GameProperties.Journal config = gameProperties.getJournal();
+        this.gameMoveRepository = gameMoveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = config.getBatchSize();
+        this.flushIntervalMs = config.getFlushIntervalMs();
+        this.fallbackFile = Paths.get(config.getFallbackFile());
+        this.queue = new LinkedBlockingQueue<>(config.getQueueCapacity());
+
+        // 上次运行留下的兜底棋步先对读取可见，由后台线程补写
+        if (Files.exists(fallbackFile)) {
+            List<GameMove> moves = readFallback();
+            moves.forEach(this::remember);
+            hasFallback = true;
+            log.info("发现未补写的棋谱兜底文件: file={}, count={}", fallbackFile, moves.size());
+        }
+
+        this.flusher = new Thread(this::runFlusher, "move-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 记录一步棋，立即返回
+     */
+    public void append(GameMove move) {
+        if (move.getMoveTime() == null) {
+            move.setMoveTime(LocalDateTime.now());
+        }
+        remember(move);
+        if (!running || !queue.offer(move)) {
+            spill(List.of(move));
+        }
+    }
+
+    /**
+     * 对局的全部棋步（含尚未写库的），按步数排序
+     */
+    public List<GameMove> findMoves(Long gameId) {
+        return findMoves(gameId, 0);
+    }
+
+    /**
+     * 对局中第afterMoveNumber步之后的棋步（含尚未写库的），按步数排序
+     */
+    public List<GameMove> findMoves(Long gameId, int afterMoveNumber) {
+        // 先取未写库的再查库：期间刚写库的棋步两边都有，按步数去重
+        List<GameMove> pending = new ArrayList<>();
+        unflushed.computeIfPresent(gameId, (id, list) -> {
+            pending.addAll(list);
+            return list;
+        });
+        List<GameMove> moves = new ArrayList<>(afterMoveNumber == 0
+                ? gameMoveRepository.findByGameIdOrderByMoveNumberAsc(gameId)
+                : gameMoveRepository.findByGameIdAndMoveNumberGreaterThanOrderByMoveNumberAsc(gameId, afterMoveNumber));
+        if (pending.isEmpty()) {
+            return moves;
+        }
+        Set<Integer> moveNumbers = new HashSet<>();
+        moves.forEach(move -> moveNumbers.add(move.getMoveNumber()));
+        for (GameMove move : pending) {
+            if (move.getMoveNumber() > afterMoveNumber && moveNumbers.add(move.getMoveNumber())) {
+                moves.add(move);
+            }
+        }
+        moves.sort(Comparator.comparing(GameMove::getMoveNumber));
+        return moves;
+    }
+
+    /**
+     * 对局第moveNumber步及之前的棋步是否都已写库
+     */
+    public boolean isFlushedThrough(Long gameId, int moveNumber) {
+        boolean[] flushed = {true};
+        unflushed.computeIfPresent(gameId, (id, list) -> {
+            flushed[0] = list.stream().allMatch(move -> move.getMoveNumber() > moveNumber);
+            return list;
+        });
+        return flushed[0];
+    }
+
+    private void runFlusher() {
+        List<GameMove> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                GameMove first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replayFallback();
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    GameMove next = running && remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (flush(batch)) {
+                    replayFallback();
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("棋谱写入线程异常", e);
+                batch.clear();
+            }
+        }
+    }
+
+    private boolean flush(List<GameMove> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> gameMoveRepository.saveAll(batch));
+            flushedCount.addAndGet(batch.size());
+            batch.forEach(this::forget);
+            return true;
+        } catch (Exception e) {
+            log.warn("棋谱批量写库失败，写入本地兜底文件: count={}", batch.size(), e);
+            spill(batch);
+            return false;
+        }
+    }
+
+    /**
+     * 数据库可用时补写兜底文件，已写库的步跳过（上次提交结果不确定时可能已经写入）
+     */
+    private void replayFallback() {
+        if (!hasFallback || System.currentTimeMillis() < nextReplayAt) {
+            return;
+        }
+        synchronized (fileLock) {
+            List<GameMove> moves = readFallback();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Map<Long, Set<Integer>> saved = new HashMap<>();
+                    List<GameMove> missing = new ArrayList<>();
+                    for (GameMove move : moves) {
+                        Set<Integer> moveNumbers = saved.computeIfAbsent(move.getGameId(),
+                                id -> new HashSet<>(gameMoveRepository.findMoveNumbersByGameId(id)));
+                        if (moveNumbers.add(move.getMoveNumber())) {
+                            missing.add(move);
+                        }
+                    }
+                    gameMoveRepository.saveAll(missing);
+                });
+                Files.deleteIfExists(fallbackFile);
+            } catch (Exception e) {
+                nextReplayAt = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+                log.warn("补写棋谱兜底文件失败，稍后重试: file={}, count={}", fallbackFile, moves.size(), e);
+                return;
+            }
+            hasFallback = false;
+            flushedCount.addAndGet(moves.size());
+            moves.forEach(this::forget);
+            log.info("棋谱兜底文件补写完成: count={}", moves.size());
+        }
+    }
+
+    /**
+     * 追加到兜底文件并刷盘
+     */
+    private void spill(List<GameMove> moves) {
+        StringBuilder lines = new StringBuilder();
+        for (GameMove move : moves) {
+            lines.append(move.getGameId()).append(',')
+                    .append(move.getMoveNumber()).append(',')
+                    .append(move.getPlayerId()).append(',')
+                    .append(move.getPositionX()).append(',')
+                    .append(move.getPositionY()).append(',')
+                    .append(move.getMoveTime()).append(',')
+                    .append(move.getTimeUsed() == null ? "" : move.getTimeUsed()).append('\n');
+        }
+        synchronized (fileLock) {
+            try (FileChannel channel = FileChannel.open(fallbackFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                channel.write(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+                hasFallback = true;
+                spilledCount.addAndGet(moves.size());
+            } catch (IOException e) {
+                log.error("棋谱写入本地兜底文件失败，以下棋步未能持久化: {}", lines, e);
+            }
+        }
+    }
+
+    private List<GameMove> readFallback() {
+        List<GameMove> moves = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(fallbackFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                try {
+                    moves.add(GameMove.builder()
+                            .gameId(Long.parseLong(fields[0]))
+                            .moveNumber(Integer.parseInt(fields[1]))
+                            .playerId(Long.parseLong(fields[2]))
+                            .positionX(Integer.parseInt(fields[3]))
+                            .positionY(Integer.parseInt(fields[4]))
+                            .moveTime(LocalDateTime.parse(fields[5]))
+                            .timeUsed(fields[6].isEmpty() ? null : Integer.parseInt(fields[6]))
+                            .build());
+                } catch (RuntimeException e) {
+                    // 写到一半时进程退出会留下残缺的最后一行
+                    log.warn("跳过无法解析的棋谱兜底记录: {}", line);
+                }
+            }
+        } catch (IOException e) {
+            log.error("读取棋谱兜底文件失败: file={}", fallbackFile, e);
+        }
+        return moves;
+    }
+
+    private void remember(GameMove move) {
+        unflushed.compute(move.getGameId(), (id, list) -> {
+            List<GameMove> moves = list != null ? list : new ArrayList<>();
+            moves.add(move);
+            return moves;
+        });
+    }
+
+    private void forget(GameMove move) {
+        unflushed.computeIfPresent(move.getGameId(), (id, list) -> {
+            list.removeIf(pending -> pending.getMoveNumber().equals(move.getMoveNumber()));
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * 等待写入的棋步数
+     */
+    public int getPending() {
+        return queue.size();
+    }
+
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    /**
+     * 停止接收新棋步，写完队列中剩余的棋步
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            flusher.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<GameMove> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            spill(rest);
+        }
+    }
+}
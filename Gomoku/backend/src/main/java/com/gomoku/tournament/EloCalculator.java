@@ -0,0 +1,108 @@
+package com.gomoku.tournament;
+
+import java.util.Arrays;
+
+/**
+ * 根据对局结果估算Elo等级分
+ *
+ * 多名选手时用 Bradley-Terry 模型的MM迭代求极大似然解，和棋记半胜半负。
+ * 每对选手之间额外加一局虚拟和棋作为先验，避免全胜或全负的选手等级分发散到无穷。
+ */
+public final class EloCalculator {
+
+    private static final int MAX_ITERATIONS = 10_000;
+    private static final double TOLERANCE = 1e-9;
+
+    // 95%置信区间对应的标准正态分位数
+    private static final double Z_95 = 1.96;
+
+    private EloCalculator() {
+    }
+
+    /**
+     * 得分率对应的Elo分差，得分率会被限制在(0,1)内
+     */
+    public static double eloDifference(double score) {
+        double clamped = Math.min(Math.max(score, 1e-4), 1 - 1e-4);
+        return -400 * Math.log10(1 / clamped - 1);
+    }
+
+    /**
+     * 两名选手之间Elo分差的95%置信区间半宽，按每局得分的样本方差估计；全胜或全负时无法估计，返回无穷大
+     */
+    public static double errorMargin(int wins, int draws, int losses) {
+        int games = wins + draws + losses;
+        if (games == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double score = (wins + draws * 0.5) / games;
+        if (score == 0 || score == 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double variance = (wins * square(1 - score) + draws * square(0.5 - score) + losses * square(score)) / games;
+        double stderr = Math.sqrt(variance / games);
+        return (eloDifference(score + Z_95 * stderr) - eloDifference(score - Z_95 * stderr)) / 2;
+    }
+
+    /**
+     * 拟合所有选手的等级分，以第一名选手为0分
+     *
+     * @param wins  wins[i][j]：i 对 j 的胜局数
+     * @param draws draws[i][j]：i 与 j 的和局数（对称）
+     */
+    public static double[] ratings(int[][] wins, int[][] draws) {
+        int n = wins.length;
+        double[][] points = new double[n][n];
+        double[][] games = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (i == j) {
+                    continue;
+                }
+                int played = wins[i][j] + wins[j][i] + draws[i][j];
+                if (played > 0) {
+                    points[i][j] = wins[i][j] + (draws[i][j] + 1) * 0.5;
+                    games[i][j] = played + 1;
+                }
+            }
+        }
+
+        double[] gamma = new double[n];
+        Arrays.fill(gamma, 1);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double change = 0;
+            for (int i = 0; i < n; i++) {
+                double score = 0;
+                double denominator = 0;
+                for (int j = 0; j < n; j++) {
+                    if (games[i][j] > 0) {
+                        score += points[i][j];
+                        denominator += games[i][j] / (gamma[i] + gamma[j]);
+                    }
+                }
+                if (denominator > 0) {
+                    double updated = score / denominator;
+                    change = Math.max(change, Math.abs(Math.log(updated / gamma[i])));
+                    gamma[i] = updated;
+                }
+            }
+            double anchor = gamma[0];
+            for (int i = 0; i < n; i++) {
+                gamma[i] /= anchor;
+            }
+            if (change < TOLERANCE) {
+                break;
+            }
+        }
+
+        double[] ratings = new double[n];
+        for (int i = 0; i < n; i++) {
+            ratings[i] = 400 * Math.log10(gamma[i]);
+        }
+        return ratings;
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+}
@@ -0,0 +1,181 @@
+package com.gomoku.tournament;
+
+import com.gomoku.ai.AIEngine;
+import com.gomoku.ai.OpeningBook;
+import com.gomoku.ai.PositionCache;
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.AIDifficulty;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 自对弈赛中的一名选手：一个独立配置的AI引擎
+ *
+ * 描述格式为 名称:难度[:time=毫秒][:nodes=节点数][:depth=深度][:book]，例如 hard1s:HARD:time=1000。
+ * time 和 nodes 对困难难度是单步时间/节点上限，对专家难度是单步时间/迭代次数上限。
+ * 应手缓存、后台思考和并行搜索一律关闭：多局对弈已经占满所有核，缓存会让同一局面的结果互相影响；
+ * 开局库默认关闭，由随机开局保证对局多样性。
+ *
+ * 对局统计只由汇总线程修改。
+ */
+@Getter
+public class Entrant {
+
+    private final String name;
+    private final AIDifficulty difficulty;
+    private final AIProperties properties;
+    private final AIEngine engine;
+
+    private int wins;
+    private int losses;
+    private int draws;
+    private int illegalMoves;
+
+    // 每步思考时间（纳秒）
+    private long[] thinkTimes = new long[1024];
+    private int moves;
+    private long totalThinkTime;
+
+    private Entrant(String name, AIDifficulty difficulty, AIProperties properties) {
+        this.name = name;
+        this.difficulty = difficulty;
+        this.properties = properties;
+        this.engine = new AIEngine(properties, new OpeningBook(properties), new PositionCache(properties));
+    }
+
+    /**
+     * 按描述创建选手
+     */
+    public static Entrant parse(String spec) {
+        String[] parts = spec.split(":");
+        if (parts.length < 2 || parts[0].isBlank()) {
+            throw new IllegalArgumentException("选手格式应为 名称:难度[:参数...]，实际为: " + spec);
+        }
+        AIDifficulty difficulty;
+        try {
+            difficulty = AIDifficulty.valueOf(parts[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("未知难度: " + parts[1] + "，可选 " + Arrays.toString(AIDifficulty.values()));
+        }
+
+        AIProperties properties = new AIProperties();
+        properties.getBook().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        properties.getPonder().setEnabled(false);
+        properties.getParallel().setEnabled(false);
+        AIProperties.SearchBudget hard = properties.getHard();
+        AIProperties.Mcts mcts = properties.getMcts();
+
+        for (int i = 2; i < parts.length; i++) {
+            String option = parts[i];
+            int eq = option.indexOf('=');
+            String key = eq < 0 ? option : option.substring(0, eq);
+            String value = eq < 0 ? null : option.substring(eq + 1);
+            switch (key) {
+                case "time" -> {
+                    long timeLimitMs = parseLong(spec, key, value);
+                    hard.setTimeLimitMs(timeLimitMs);
+                    mcts.setTimeLimitMs(timeLimitMs);
+                }
+                case "nodes" -> {
+                    long nodeLimit = parseLong(spec, key, value);
+                    hard.setNodeLimit(nodeLimit);
+                    mcts.setIterationLimit(nodeLimit);
+                }
+                case "depth" -> hard.setMaxDepth((int) parseLong(spec, key, value));
+                case "book" -> properties.getBook().setEnabled(true);
+                default -> throw new IllegalArgumentException("未知选手参数: " + key + "（" + spec + "）");
+            }
+        }
+        return new Entrant(parts[0], difficulty, properties);
+    }
+
+    private static long parseLong(String spec, String key, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("选手参数 " + key + " 需要整数值（" + spec + "）");
+        }
+    }
+
+    /**
+     * 记录一局的结果
+     *
+     * @param score 本方得分：胜1，和0.5，负0
+     */
+    void recordResult(double score) {
+        if (score > 0.5) {
+            wins++;
+        } else if (score < 0.5) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    void recordIllegalMove() {
+        illegalMoves++;
+    }
+
+    /**
+     * 记录一局中本方每步的思考时间
+     */
+    void recordThinkTimes(long[] times, int count) {
+        if (moves + count > thinkTimes.length) {
+            thinkTimes = Arrays.copyOf(thinkTimes, Math.max(thinkTimes.length * 2, moves + count));
+        }
+        for (int i = 0; i < count; i++) {
+            thinkTimes[moves++] = times[i];
+            totalThinkTime += times[i];
+        }
+    }
+
+    public int getGames() {
+        return wins + losses + draws;
+    }
+
+    /**
+     * 得分率，和棋算半分
+     */
+    public double getScoreRate() {
+        int games = getGames();
+        return games == 0 ? 0 : (wins + draws * 0.5) / games;
+    }
+
+    /**
+     * 平均每步思考时间（毫秒）
+     */
+    public double getAverageThinkMillis() {
+        return moves == 0 ? 0 : totalThinkTime / 1e6 / moves;
+    }
+
+    /**
+     * 每秒搜索节点数（按本选手所有步的思考时间之和折算），不统计节点的难度返回0
+     */
+    public double getNodesPerSecond() {
+        return totalThinkTime == 0 ? 0 : engine.getSearchedNodes() / (totalThinkTime / 1e9);
+    }
+
+    /**
+     * 单步思考时间的百分位数（毫秒），按最近秩法取值
+     */
+    public double[] thinkTimePercentiles(double... percentiles) {
+        double[] result = new double[percentiles.length];
+        if (moves == 0) {
+            return result;
+        }
+        long[] sorted = Arrays.copyOf(thinkTimes, moves);
+        Arrays.sort(sorted);
+        for (int i = 0; i < percentiles.length; i++) {
+            int rank = (int) Math.ceil(percentiles[i] / 100 * moves);
+            result[i] = sorted[Math.max(rank, 1) - 1] / 1e6;
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        engine.shutdown();
+    }
+}
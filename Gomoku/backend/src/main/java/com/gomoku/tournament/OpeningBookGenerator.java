@@ -0,0 +1,245 @@
+package com.gomoku.tournament;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.gomoku.ai.AIEngine;
+import com.gomoku.ai.OpeningBook;
+import com.gomoku.ai.PositionCache;
+import com.gomoku.config.AIProperties;
+import com.gomoku.enums.AIDifficulty;
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 开局库生成器：src/main/resources/opening-book.bin 由它生成，格式见 {@link OpeningBook}
+ *
+ * 从空棋盘和天元周围 --radius 格内的每个黑棋第一手（AI执白时的开局）出发，
+ * AI用困难难度算出应手，对方的应手取已有棋子周围两格内的所有空位，逐层展开到 --max-ply 步。
+ * 对称的局面只展开一次。空棋盘直接走天元。
+ * 搜索按节点数而不是时间限制，单线程、不用缓存，同一份代码和参数每次生成的文件完全相同，
+ * 修改评估或搜索后可以重新生成并对比差异。
+ *
+ * 运行：mvn -Pbook compile exec:exec -Dbook.args="--output=src/main/resources/opening-book.bin"
+ */
+public class OpeningBookGenerator {
+
+    private static final String USAGE = """
+            用法: OpeningBookGenerator --output=文件 [选项]
+              --output        输出文件
+              --nodes=N       每个局面的搜索节点上限，默认200000
+              --max-ply=N     库中局面的最大步数，默认4
+              --radius=N      黑棋第一手落在天元周围N格内，默认2
+            """;
+
+    private static final int MAGIC = 0x474D4B42; // "GMKB"
+    private static final int VERSION = 1;
+    private static final int CENTER = Board.BOARD_SIZE / 2;
+    // 对方应手只考虑已有棋子周围这么多格内的空位
+    private static final int REPLY_DISTANCE = 2;
+
+    private final AIEngine engine;
+    private final Path output;
+    private final int maxPly;
+    private final int radius;
+
+    // 规范哈希 -> 落子序列加AI应手，按生成顺序写出
+    private final Map<Long, int[]> entries = new LinkedHashMap<>();
+
+    private OpeningBookGenerator(AIEngine engine, Path output, int maxPly, int radius) {
+        this.engine = engine;
+        this.output = output;
+        this.maxPly = maxPly;
+        this.radius = radius;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        OpeningBookGenerator generator;
+        try {
+            generator = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            generator.run();
+        } finally {
+            generator.engine.shutdown();
+        }
+    }
+
+    private static OpeningBookGenerator parse(String[] args) {
+        Path output = null;
+        long nodes = 200_000;
+        int maxPly = 4;
+        int radius = 2;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "output" -> output = Paths.get(value);
+                case "nodes" -> nodes = positive(key, value);
+                case "max-ply" -> maxPly = positive(key, value);
+                case "radius" -> radius = Math.min(positive(key, value), CENTER);
+                default -> throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+        }
+        if (output == null) {
+            throw new IllegalArgumentException("缺少 --output");
+        }
+
+        AIProperties properties = new AIProperties();
+        properties.getBook().setEnabled(false);
+        properties.getCache().setEnabled(false);
+        properties.getPonder().setEnabled(false);
+        properties.getParallel().setEnabled(false);
+        // 只由节点数限制，时间上限放宽到不会触发
+        properties.getHard().setTimeLimitMs(TimeUnit.HOURS.toMillis(1));
+        properties.getHard().setNodeLimit(nodes);
+        AIEngine engine = new AIEngine(properties, new OpeningBook(properties), new PositionCache(properties));
+        return new OpeningBookGenerator(engine, output, maxPly, radius);
+    }
+
+    private static int positive(String key, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // 统一按下面的提示处理
+        }
+        throw new IllegalArgumentException("--" + key + " 需要正整数");
+    }
+
+    private void run() throws IOException {
+        long start = System.nanoTime();
+        Board board = new Board();
+        expand(board);
+
+        // AI执白：黑棋第一手之后的局面
+        Set<Long> roots = new HashSet<>();
+        for (int x = CENTER - radius; x <= CENTER + radius; x++) {
+            for (int y = CENTER - radius; y <= CENTER + radius; y++) {
+                board.placeStone(x, y, PieceColor.BLACK);
+                if (roots.add(board.canonicalHash())) {
+                    expand(board);
+                }
+                board.undoStone();
+            }
+        }
+
+        write();
+        System.out.printf("开局库已生成: %s, %d 个局面, 用时 %.1f 秒%n",
+                output, entries.size(), (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * 记录AI在当前局面的应手，再对对方的每个应手递归展开
+     */
+    private void expand(Board board) {
+        int plies = board.getMoveCount();
+        if (plies > maxPly || entries.containsKey(board.canonicalHash())) {
+            return;
+        }
+        PieceColor toMove = plies % 2 == 0 ? PieceColor.BLACK : PieceColor.WHITE;
+        int reply;
+        if (plies == 0) {
+            reply = Board.index(CENTER, CENTER);
+        } else {
+            AIEngine.Position position = engine.calculateNextMove(board, AIDifficulty.HARD, toMove);
+            reply = Board.index(position.getX(), position.getY());
+        }
+
+        int[] entry = new int[plies + 1];
+        for (int ply = 0; ply < plies; ply++) {
+            entry[ply] = board.getMoveAt(ply);
+        }
+        entry[plies] = reply;
+        entries.put(board.canonicalHash(), entry);
+        if (entries.size() % 50 == 0) {
+            System.out.printf("已生成 %d 个局面%n", entries.size());
+        }
+        if (plies + 2 > maxPly) {
+            return;
+        }
+
+        board.placeStone(reply / Board.BOARD_SIZE, reply % Board.BOARD_SIZE, toMove);
+        PieceColor opponent = toMove == PieceColor.BLACK ? PieceColor.WHITE : PieceColor.BLACK;
+        Set<Long> expanded = new HashSet<>();
+        for (int cell : nearbyEmptyCells(board)) {
+            board.placeStone(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, opponent);
+            if (expanded.add(board.canonicalHash())) {
+                expand(board);
+            }
+            board.undoStone();
+        }
+        board.undoStone();
+    }
+
+    private static List<Integer> nearbyEmptyCells(Board board) {
+        List<Integer> cells = new ArrayList<>();
+        for (int cell = 0; cell < Board.CELL_COUNT; cell++) {
+            if (!board.isEmptyCell(cell)) {
+                continue;
+            }
+            int x = cell / Board.BOARD_SIZE;
+            int y = cell % Board.BOARD_SIZE;
+            for (int ply = 0; ply < board.getMoveCount(); ply++) {
+                int stone = board.getMoveAt(ply);
+                if (Math.abs(stone / Board.BOARD_SIZE - x) <= REPLY_DISTANCE
+                        && Math.abs(stone % Board.BOARD_SIZE - y) <= REPLY_DISTANCE) {
+                    cells.add(cell);
+                    break;
+                }
+            }
+        }
+        return cells;
+    }
+
+    private void write() throws IOException {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream stream = Files.newOutputStream(output);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(entries.size());
+            for (int[] entry : entries.values()) {
+                int plies = entry.length - 1;
+                out.writeByte(plies);
+                for (int ply = 0; ply < plies; ply++) {
+                    out.writeByte(entry[ply]);
+                }
+                // 每个局面一个应手
+                out.writeByte(1);
+                out.writeByte(entry[plies]);
+            }
+        }
+    }
+}
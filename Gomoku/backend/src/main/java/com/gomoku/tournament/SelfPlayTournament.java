@@ -0,0 +1,312 @@
+package com.gomoku.tournament;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.gomoku.ai.AIEngine;
+import com.gomoku.enums.PieceColor;
+import com.gomoku.game.Board;
+import com.gomoku.game.GameLogic;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI自对弈赛：不启动Spring、不访问数据库，在所有核上并行进行AI对AI的对局
+ *
+ * 每对选手下 --games 局（向上取偶数）。每个随机开局下两局并交换黑白，抵消先手优势和开局偏差。
+ * 结束后输出每名选手的战绩、Elo估计、平均思考时间、每秒节点数和单步耗时的p50/p95/p99，
+ * 以及每对选手之间的分差和95%置信区间，用来确认更快的引擎版本没有变弱，也用来估算困难难度的硬件需求。
+ *
+ * 运行：mvn -Ptournament compile exec:exec -Dtournament.args="--entrant=a:HARD:time=500 --entrant=b:EXPERT:time=500"
+ */
+public class SelfPlayTournament {
+
+    private static final String USAGE = """
+            用法: SelfPlayTournament --entrant=名称:难度[:time=毫秒][:nodes=节点数][:depth=深度][:book] ... [选项]
+              --entrant       选手，至少两名；time/nodes 对专家难度是单步时间/迭代次数上限
+              --games=N       每对选手的对局数，默认100
+              --threads=N     并行对局数，默认CPU核数
+              --opening=N     随机开局的步数，默认4
+              --radius=N      随机开局落在天元周围N格内，默认3
+              --seed=N        随机开局的种子，默认随机
+            """;
+
+    private static final int CENTER = Board.BOARD_SIZE / 2;
+
+    private final List<Entrant> entrants;
+    private final int gamesPerPair;
+    private final int threads;
+    private final int openingPlies;
+    private final int openingRadius;
+    private final long seed;
+
+    private final GameLogic gameLogic = new GameLogic();
+    // 对局编号，引擎按它在同一局的前后两步之间保留搜索树
+    private final AtomicLong gameIds = new AtomicLong();
+
+    private SelfPlayTournament(List<Entrant> entrants, int gamesPerPair, int threads,
+                               int openingPlies, int openingRadius, long seed) {
+        this.entrants = entrants;
+        this.gamesPerPair = gamesPerPair;
+        this.threads = threads;
+        this.openingPlies = openingPlies;
+        this.openingRadius = openingRadius;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        // 不经过Spring Boot时logback默认输出DEBUG日志，每步搜索一行会淹没结果
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        SelfPlayTournament tournament;
+        try {
+            tournament = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            tournament.run();
+        } finally {
+            tournament.entrants.forEach(Entrant::shutdown);
+        }
+    }
+
+    private static SelfPlayTournament parse(String[] args) {
+        List<Entrant> entrants = new ArrayList<>();
+        int games = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int openingPlies = 4;
+        int openingRadius = 3;
+        long seed = System.nanoTime();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+            String key = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (key) {
+                case "entrant" -> entrants.add(Entrant.parse(value));
+                case "games" -> games = positive(key, value);
+                case "threads" -> threads = positive(key, value);
+                case "opening" -> openingPlies = positive(key, value);
+                case "radius" -> openingRadius = Math.min(positive(key, value), CENTER);
+                case "seed" -> seed = Long.parseLong(value);
+                default -> throw new IllegalArgumentException("无法识别的参数: " + arg);
+            }
+        }
+        if (entrants.size() < 2) {
+            throw new IllegalArgumentException("至少需要两名选手");
+        }
+        int side = openingRadius * 2 + 1;
+        if (openingPlies >= side * side) {
+            throw new IllegalArgumentException("开局步数超过了开局区域的格子数");
+        }
+        // 每个开局交换黑白各下一局
+        games = (games + 1) / 2 * 2;
+        return new SelfPlayTournament(entrants, games, threads, openingPlies, openingRadius, seed);
+    }
+
+    private static int positive(String key, String value) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // 统一按下面的提示处理
+        }
+        throw new IllegalArgumentException("--" + key + " 需要正整数");
+    }
+
+    private void run() throws InterruptedException {
+        int n = entrants.size();
+        int total = n * (n - 1) / 2 * gamesPerPair;
+        System.out.printf("自对弈赛: %d 名选手, 共 %d 局, %d 线程, 开局 %d 步, 种子 %d%n",
+                n, total, threads, openingPlies, seed);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                runnable -> new Thread(runnable, "self-play-" + threadNumber.incrementAndGet()));
+        CompletionService<GameRecord> completion = new ExecutorCompletionService<>(executor);
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                for (int g = 0; g < gamesPerPair; g += 2) {
+                    int[] opening = randomOpening(random);
+                    int black = a;
+                    int white = b;
+                    completion.submit(() -> play(black, white, opening));
+                    completion.submit(() -> play(white, black, opening));
+                }
+            }
+        }
+
+        int[][] wins = new int[n][n];
+        int[][] draws = new int[n][n];
+        long plies = 0;
+        long start = System.nanoTime();
+        int progressStep = Math.max(total / 20, 1);
+        try {
+            for (int finished = 1; finished <= total; finished++) {
+                GameRecord record = completion.take().get();
+                Entrant black = entrants.get(record.black());
+                Entrant white = entrants.get(record.white());
+                black.recordResult(record.blackScore());
+                white.recordResult(1 - record.blackScore());
+                black.recordThinkTimes(record.blackTimes(), record.blackMoves());
+                white.recordThinkTimes(record.whiteTimes(), record.whiteMoves());
+                if (record.illegalBy() >= 0) {
+                    entrants.get(record.illegalBy()).recordIllegalMove();
+                }
+                if (record.blackScore() == 1) {
+                    wins[record.black()][record.white()]++;
+                } else if (record.blackScore() == 0) {
+                    wins[record.white()][record.black()]++;
+                } else {
+                    draws[record.black()][record.white()]++;
+                    draws[record.white()][record.black()]++;
+                }
+                plies += record.plies();
+                if (finished % progressStep == 0 || finished == total) {
+                    System.out.printf("已完成 %d/%d 局%n", finished, total);
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new RuntimeException("对局执行失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%n用时 %.1f 秒, 平均每局 %.1f 手%n%n", seconds, (double) plies / total);
+        printStandings(EloCalculator.ratings(wins, draws));
+        printPairings(wins, draws);
+    }
+
+    /**
+     * 在天元附近随机摆出开局，摆完时不能已分胜负
+     */
+    private int[] randomOpening(SplittableRandom random) {
+        int side = openingRadius * 2 + 1;
+        while (true) {
+            Board board = new Board();
+            int[] opening = new int[openingPlies];
+            GameLogic.GameResult result = GameLogic.GameResult.CONTINUE;
+            for (int ply = 0; ply < openingPlies && result == GameLogic.GameResult.CONTINUE; ply++) {
+                int x;
+                int y;
+                do {
+                    x = CENTER - openingRadius + random.nextInt(side);
+                    y = CENTER - openingRadius + random.nextInt(side);
+                } while (!board.isEmpty(x, y));
+                opening[ply] = Board.index(x, y);
+                result = gameLogic.executeMove(board, x, y, gameLogic.getNextTurn(ply));
+            }
+            if (result == GameLogic.GameResult.CONTINUE) {
+                return opening;
+            }
+        }
+    }
+
+    /**
+     * 下一局：先摆开局，再由双方引擎轮流落子直到终局。返回非法落子的一方判负
+     */
+    private GameRecord play(int blackIndex, int whiteIndex, int[] opening) {
+        Entrant black = entrants.get(blackIndex);
+        Entrant white = entrants.get(whiteIndex);
+        long gameId = gameIds.incrementAndGet();
+        Board board = new Board();
+        for (int ply = 0; ply < opening.length; ply++) {
+            int cell = opening[ply];
+            gameLogic.executeMove(board, cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, gameLogic.getNextTurn(ply));
+        }
+
+        long[][] times = new long[2][Board.CELL_COUNT];
+        int[] moves = new int[2];
+        GameLogic.GameResult result = GameLogic.GameResult.CONTINUE;
+        int illegalBy = -1;
+        while (result == GameLogic.GameResult.CONTINUE) {
+            PieceColor color = gameLogic.getNextTurn(board.getMoveCount());
+            int side = color.ordinal();
+            Entrant mover = color == PieceColor.BLACK ? black : white;
+
+            long started = System.nanoTime();
+            AIEngine.Position move = mover.getEngine().calculateNextMove(board, mover.getDifficulty(), color, gameId);
+            times[side][moves[side]++] = System.nanoTime() - started;
+
+            result = gameLogic.executeMove(board, move.getX(), move.getY(), color);
+            if (result == GameLogic.GameResult.INVALID_MOVE) {
+                illegalBy = color == PieceColor.BLACK ? blackIndex : whiteIndex;
+                result = color == PieceColor.BLACK ? GameLogic.GameResult.WHITE_WIN : GameLogic.GameResult.BLACK_WIN;
+            }
+        }
+        black.getEngine().endGame(gameId);
+        white.getEngine().endGame(gameId);
+
+        double blackScore = switch (result) {
+            case BLACK_WIN -> 1;
+            case WHITE_WIN, BLACK_LOSE_OVERLINE, BLACK_LOSE_FORBIDDEN -> 0;
+            default -> 0.5;
+        };
+        return new GameRecord(blackIndex, whiteIndex, blackScore, board.getMoveCount(), illegalBy,
+                times[0], moves[0], times[1], moves[1]);
+    }
+
+    private void printStandings(double[] ratings) {
+        System.out.printf("%-12s %-7s %6s %6s %6s %6s %7s %8s %10s %12s %9s %9s %9s%n",
+                "选手", "难度", "局数", "胜", "负", "和", "得分率", "Elo", "平均思考ms", "节点/秒", "p50 ms", "p95 ms", "p99 ms");
+        for (int i = 0; i < entrants.size(); i++) {
+            Entrant entrant = entrants.get(i);
+            double[] latency = entrant.thinkTimePercentiles(50, 95, 99);
+            double nodesPerSecond = entrant.getNodesPerSecond();
+            System.out.printf(Locale.ROOT, "%-12s %-7s %6d %6d %6d %6d %6.1f%% %+8.0f %10.1f %12s %9.1f %9.1f %9.1f%n",
+                    entrant.getName(), entrant.getDifficulty(), entrant.getGames(),
+                    entrant.getWins(), entrant.getLosses(), entrant.getDraws(),
+                    entrant.getScoreRate() * 100, ratings[i], entrant.getAverageThinkMillis(),
+                    nodesPerSecond > 0 ? String.format(Locale.ROOT, "%.0f", nodesPerSecond) : "-",
+                    latency[0], latency[1], latency[2]);
+            if (entrant.getIllegalMoves() > 0) {
+                System.out.printf("  警告: %s 有 %d 局因非法落子判负%n", entrant.getName(), entrant.getIllegalMoves());
+            }
+        }
+    }
+
+    private void printPairings(int[][] wins, int[][] draws) {
+        System.out.println();
+        for (int a = 0; a < entrants.size(); a++) {
+            for (int b = a + 1; b < entrants.size(); b++) {
+                int won = wins[a][b];
+                int lost = wins[b][a];
+                int drawn = draws[a][b];
+                double score = (won + drawn * 0.5) / (won + lost + drawn);
+                System.out.printf(Locale.ROOT, "%s vs %s: +%d -%d =%d, 得分率 %.1f%%, Elo差 %+.0f ± %.0f%n",
+                        entrants.get(a).getName(), entrants.get(b).getName(), won, lost, drawn, score * 100,
+                        EloCalculator.eloDifference(score), EloCalculator.errorMargin(won, drawn, lost));
+            }
+        }
+    }
+
+    /**
+     * 一局的结果，由对局线程产生、汇总线程消费
+     *
+     * @param blackScore 黑方得分：胜1，和0.5，负0
+     * @param illegalBy  非法落子的选手序号，没有时为-1
+     */
+    private record GameRecord(int black, int white, double blackScore, int plies, int illegalBy,
+                              long[] blackTimes, int blackMoves, long[] whiteTimes, int whiteMoves) {
+    }
+}
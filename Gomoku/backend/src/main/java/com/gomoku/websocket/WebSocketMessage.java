@@ -28,6 +28,7 @@ public class WebSocketMessage {
         MOVE_SUCCESS,   // 落子成功
         MOVE_INVALID,   // 落子非法
         OPPONENT_MOVE,  // 对手落子
+        AI_MOVE,        // AI落子
         GAME_OVER,      // 游戏结束
         OPPONENT_RESIGN,// 对手认输
         OPPONENT_DISCONNECT, // 对手断线
@@ -0,0 +1,173 @@
+package com.gomoku.game;
+
+import com.gomoku.enums.PieceColor;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 位棋盘测试：落子/撤销的增量状态、对称哈希和惰性更新的威胁点索引
+ *
+ * 随机局面使用固定种子，失败时可以复现；棋子集中在中心附近，容易形成四和五。
+ */
+class BoardTest {
+
+    private static final int SEED = 20240601;
+    private static final int SEQUENCES = 200;
+
+    @Test
+    void undoRestoresHashAndLineMasks() {
+        Random random = new Random(SEED);
+        for (int sequence = 0; sequence < SEQUENCES; sequence++) {
+            Board board = new Board();
+            int plies = 1 + random.nextInt(40);
+            long[] hashes = new long[plies];
+            int[][] blackLines = new int[plies][];
+            int[][] whiteLines = new int[plies][];
+            for (int ply = 0; ply < plies; ply++) {
+                hashes[ply] = board.getHash();
+                blackLines[ply] = board.getLines(Board.BLACK).clone();
+                whiteLines[ply] = board.getLines(Board.WHITE).clone();
+                placeRandom(board, random);
+            }
+            for (int ply = plies - 1; ply >= 0; ply--) {
+                assertTrue(board.undoStone());
+                assertEquals(ply, board.getMoveCount(), "sequence " + sequence);
+                assertEquals(hashes[ply], board.getHash(), "sequence " + sequence + " ply " + ply);
+                assertArrayEquals(blackLines[ply], board.getLines(Board.BLACK), "sequence " + sequence + " ply " + ply);
+                assertArrayEquals(whiteLines[ply], board.getLines(Board.WHITE), "sequence " + sequence + " ply " + ply);
+            }
+            assertEquals(0L, board.getHash());
+        }
+    }
+
+    @Test
+    void placeAndUndoMatchesBoardBuiltFromScratch() {
+        Random random = new Random(SEED + 1);
+        Board board = new Board();
+        for (int step = 0; step < 2000; step++) {
+            if (board.isFull() || (board.getMoveCount() > 0 && random.nextInt(3) == 0)) {
+                board.undoStone();
+            } else {
+                placeRandom(board, random);
+            }
+            Board rebuilt = Board.fromMoveBytes(board.toMoveBytes());
+            assertEquals(rebuilt.getHash(), board.getHash(), "step " + step);
+            assertArrayEquals(rebuilt.getLines(Board.BLACK), board.getLines(Board.BLACK), "step " + step);
+            assertArrayEquals(rebuilt.getLines(Board.WHITE), board.getLines(Board.WHITE), "step " + step);
+        }
+    }
+
+    @Test
+    void canonicalHashIsEqualAcrossSymmetries() {
+        Random random = new Random(SEED + 2);
+        for (int sequence = 0; sequence < SEQUENCES; sequence++) {
+            Board board = new Board();
+            int plies = random.nextInt(30);
+            for (int ply = 0; ply < plies; ply++) {
+                placeRandom(board, random);
+            }
+            for (int s = 0; s < Board.SYMMETRY_COUNT; s++) {
+                Board image = transformed(board, s);
+                assertEquals(board.symmetryHash(s), image.getHash(), "sequence " + sequence + " symmetry " + s);
+                assertEquals(board.canonicalHash(), image.canonicalHash(), "sequence " + sequence + " symmetry " + s);
+            }
+        }
+    }
+
+    @Test
+    void threatIndexMatchesFullRescan() {
+        Random random = new Random(SEED + 3);
+        for (int sequence = 0; sequence < SEQUENCES; sequence++) {
+            Board board = new Board();
+            for (int step = 0; step < 60; step++) {
+                if (board.getMoveCount() > 0 && random.nextInt(4) == 0) {
+                    board.undoStone();
+                } else {
+                    placeRandom(board, random);
+                }
+                for (int stone = Board.BLACK; stone <= Board.WHITE; stone++) {
+                    String message = "sequence " + sequence + " step " + step + " stone " + stone;
+                    TreeSet<Integer> fives = rescan(board, stone, true);
+                    TreeSet<Integer> fours = rescan(board, stone, false);
+                    assertEquals(fives, indexed(board, stone, true), message);
+                    assertEquals(fours, indexed(board, stone, false), message);
+                    assertEquals(fives.isEmpty() ? -1 : fives.first(), board.firstFivePoint(stone), message);
+                    assertEquals(fours.isEmpty() ? -1 : fours.first(), board.firstFourPoint(stone), message);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在中心7x7范围内随机落子，满了就退到整个棋盘
+     */
+    private static void placeRandom(Board board, Random random) {
+        PieceColor color = board.getMoveCount() % 2 == 0 ? PieceColor.BLACK : PieceColor.WHITE;
+        for (int attempt = 0; attempt < 100; attempt++) {
+            if (board.placeStone(4 + random.nextInt(7), 4 + random.nextInt(7), color)) {
+                return;
+            }
+        }
+        List<Integer> empty = new ArrayList<>();
+        for (int cell = 0; cell < Board.CELL_COUNT; cell++) {
+            if (board.isEmptyCell(cell)) {
+                empty.add(cell);
+            }
+        }
+        int cell = empty.get(random.nextInt(empty.size()));
+        board.placeStone(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, color);
+    }
+
+    private static Board transformed(Board board, int symmetry) {
+        Board image = new Board();
+        for (int ply = 0; ply < board.getMoveCount(); ply++) {
+            int cell = board.getMoveAt(ply);
+            int target = Board.transform(symmetry, cell);
+            image.placeStone(target / Board.BOARD_SIZE, target % Board.BOARD_SIZE,
+                    board.getStoneAt(cell) == Board.BLACK ? PieceColor.BLACK : PieceColor.WHITE);
+        }
+        return image;
+    }
+
+    /**
+     * 逐个空位重新计算：成五点为黑棋某方向恰好五子、白棋五子及以上，成四点为某方向四子及以上
+     */
+    private static TreeSet<Integer> rescan(Board board, int stone, boolean five) {
+        TreeSet<Integer> points = new TreeSet<>();
+        for (int cell = 0; cell < Board.CELL_COUNT; cell++) {
+            if (!board.isEmptyCell(cell)) {
+                continue;
+            }
+            for (int d = 0; d < Board.DIRECTION_COUNT; d++) {
+                int run = Board.runLength(board.getLineThrough(stone, d, cell), Board.bitOf(d, cell));
+                boolean hit = five ? (stone == Board.BLACK ? run == 5 : run >= 5) : run >= 4;
+                if (hit) {
+                    points.add(cell);
+                    break;
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * 通过只做记录、从不接受的过滤器取出索引中的全部点
+     */
+    private static TreeSet<Integer> indexed(Board board, int stone, boolean five) {
+        TreeSet<Integer> points = new TreeSet<>();
+        if (five) {
+            board.firstFivePoint(stone, cell -> !points.add(cell));
+        } else {
+            board.firstFourPoint(stone, cell -> !points.add(cell));
+        }
+        return points;
+    }
+}
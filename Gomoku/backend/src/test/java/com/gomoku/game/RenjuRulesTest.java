@@ -0,0 +1,143 @@
+package com.gomoku.game;
+
+import com.gomoku.enums.PieceColor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 连珠禁手判定测试
+ *
+ * 每个局面都在棋盘的8种对称变换下检查，边线上的局面因此覆盖了四条边。
+ * 棋子坐标写作 {x, y}，最后两个参数是要判定的黑棋落点。
+ */
+class RenjuRulesTest {
+
+    private static final int[][] NONE = {};
+
+    @Test
+    void doubleOpenThreeIsForbidden() {
+        assertForbidden(RenjuRules.Forbidden.DOUBLE_THREE,
+                new int[][]{{7, 6}, {7, 8}, {6, 7}, {8, 7}}, NONE, 7, 7);
+    }
+
+    @Test
+    void threeWhoseOpenFourPointIsForbiddenIsNotCounted() {
+        // 横向的三一端被白子挡住，唯一能成活四的点(7,9)同时在竖线上成四，是四四禁手，所以不算活三
+        int[][] black = {{7, 6}, {7, 8}, {6, 7}, {8, 7}, {4, 9}, {5, 9}, {6, 9}};
+        assertForbidden(RenjuRules.Forbidden.NONE, black, new int[][]{{7, 4}}, 7, 7);
+        // 去掉白子后(7,5)也能成活四，又是真三三
+        assertForbidden(RenjuRules.Forbidden.DOUBLE_THREE, black, NONE, 7, 7);
+    }
+
+    @Test
+    void doubleFourOnOneLineIsForbidden() {
+        // ●_●●●_● ：两端各有一个成五点
+        assertForbidden(RenjuRules.Forbidden.DOUBLE_FOUR,
+                new int[][]{{7, 4}, {7, 6}, {7, 8}, {7, 10}}, NONE, 7, 7);
+    }
+
+    @Test
+    void overlineIsForbidden() {
+        assertForbidden(RenjuRules.Forbidden.OVERLINE,
+                new int[][]{{7, 2}, {7, 3}, {7, 4}, {7, 6}, {7, 7}}, NONE, 7, 5);
+    }
+
+    @Test
+    void fiveWinsEvenWithForbiddenShape() {
+        // 横向成五，同时竖向、斜向各成活三
+        assertForbidden(RenjuRules.Forbidden.NONE,
+                new int[][]{{7, 3}, {7, 4}, {7, 5}, {7, 6}, {6, 7}, {8, 7}, {6, 6}, {8, 8}}, NONE, 7, 7);
+    }
+
+    @Test
+    void doubleOpenThreeNearEdgeIsForbidden() {
+        assertForbidden(RenjuRules.Forbidden.DOUBLE_THREE,
+                new int[][]{{1, 2}, {1, 4}, {2, 3}, {3, 3}}, NONE, 1, 3);
+    }
+
+    @Test
+    void threeBlockedByEdgeIsNotCounted() {
+        // 横向的三靠着边线，成四后一端被棋盘外挡住，不是活三
+        assertForbidden(RenjuRules.Forbidden.NONE,
+                new int[][]{{7, 0}, {7, 1}, {6, 2}, {8, 2}}, NONE, 7, 2);
+    }
+
+    @Test
+    void doubleFourOnEdgeLineIsForbidden() {
+        assertForbidden(RenjuRules.Forbidden.DOUBLE_FOUR,
+                new int[][]{{0, 0}, {0, 2}, {0, 4}, {0, 6}}, NONE, 0, 3);
+    }
+
+    @Test
+    void overlineOnEdgeLineIsForbidden() {
+        assertForbidden(RenjuRules.Forbidden.OVERLINE,
+                new int[][]{{0, 0}, {0, 1}, {0, 3}, {0, 4}, {0, 5}}, NONE, 0, 2);
+    }
+
+    @Test
+    void fiveOnEdgeWinsEvenWithDoubleFour() {
+        // 沿边线成五，同时竖向、斜向各成四
+        assertForbidden(RenjuRules.Forbidden.NONE,
+                new int[][]{{0, 1}, {0, 2}, {0, 3}, {0, 4}, {1, 5}, {2, 5}, {4, 5}, {1, 6}, {2, 7}, {4, 9}},
+                NONE, 0, 5);
+    }
+
+    @Test
+    void exactFiveWinsForBlackEvenWithOverlineElsewhere() {
+        // 横向恰好五连，竖向同时长连
+        int[][] black = {{7, 3}, {7, 4}, {7, 5}, {7, 6}, {2, 7}, {3, 7}, {4, 7}, {5, 7}, {6, 7}};
+        for (int s = 0; s < Board.SYMMETRY_COUNT; s++) {
+            Board board = board(s, black, NONE);
+            assertTrue(RenjuRules.isWin(board, Board.transform(s, Board.index(7, 7)), Board.BLACK), "symmetry " + s);
+        }
+    }
+
+    @Test
+    void overlineWinsOnlyForWhite() {
+        int[][] stones = {{7, 2}, {7, 3}, {7, 4}, {7, 6}, {7, 7}};
+        for (int s = 0; s < Board.SYMMETRY_COUNT; s++) {
+            int move = Board.transform(s, Board.index(7, 5));
+            assertFalse(RenjuRules.isWin(board(s, stones, NONE), move, Board.BLACK), "symmetry " + s);
+            assertTrue(RenjuRules.isWin(board(s, NONE, stones), move, Board.WHITE), "symmetry " + s);
+        }
+    }
+
+    @Test
+    void checkDoesNotModifyBoard() {
+        Board board = board(0, new int[][]{{7, 6}, {7, 8}, {6, 7}, {8, 7}, {4, 9}, {5, 9}, {6, 9}},
+                new int[][]{{7, 4}});
+        long hash = board.getHash();
+        int moveCount = board.getMoveCount();
+
+        RenjuRules.check(board, Board.index(7, 7));
+
+        assertEquals(hash, board.getHash());
+        assertEquals(moveCount, board.getMoveCount());
+    }
+
+    private static void assertForbidden(RenjuRules.Forbidden expected, int[][] black, int[][] white, int x, int y) {
+        for (int s = 0; s < Board.SYMMETRY_COUNT; s++) {
+            Board board = board(s, black, white);
+            int move = Board.transform(s, Board.index(x, y));
+            assertEquals(expected, RenjuRules.check(board, move), "symmetry " + s);
+            assertEquals(expected != RenjuRules.Forbidden.NONE, RenjuRules.isForbidden(board, move), "symmetry " + s);
+        }
+    }
+
+    private static Board board(int symmetry, int[][] black, int[][] white) {
+        Board board = new Board();
+        place(board, symmetry, black, PieceColor.BLACK);
+        place(board, symmetry, white, PieceColor.WHITE);
+        return board;
+    }
+
+    private static void place(Board board, int symmetry, int[][] stones, PieceColor color) {
+        for (int[] stone : stones) {
+            int cell = Board.transform(symmetry, Board.index(stone[0], stone[1]));
+            board.placeStone(cell / Board.BOARD_SIZE, cell % Board.BOARD_SIZE, color);
+        }
+    }
+}
@@ -28,7 +28,7 @@ CREATE TABLE IF NOT EXISTS game (
     game_mode VARCHAR(20) NOT NULL CHECK (game_mode IN ('PVP', 'PVE')),
     black_player_id BIGINT NOT NULL REFERENCES "user"(user_id),
     white_player_id BIGINT REFERENCES "user"(user_id),
-    ai_difficulty VARCHAR(20) CHECK (ai_difficulty IN ('EASY', 'MEDIUM', 'HARD')),
+    ai_difficulty VARCHAR(20) CHECK (ai_difficulty IN ('EASY', 'MEDIUM', 'HARD', 'EXPERT')),
     status VARCHAR(20) NOT NULL CHECK (status IN ('WAITING', 'PLAYING', 'FINISHED')),
     winner_id BIGINT REFERENCES "user"(user_id),
     end_reason VARCHAR(50) CHECK (end_reason IN ('NORMAL', 'TIMEOUT', 'RESIGN', 'DISCONNECT')),
@@ -39,9 +39,12 @@ CREATE TABLE IF NOT EXISTS game (
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- 棋谱主键序列：后端按步长50批量预取ID，以便批量插入
+CREATE SEQUENCE IF NOT EXISTS game_move_seq INCREMENT BY 50;
+
 -- 棋谱表
 CREATE TABLE IF NOT EXISTS game_move (
-    move_id BIGSERIAL PRIMARY KEY,
+    move_id BIGINT PRIMARY KEY DEFAULT nextval('game_move_seq'),
     game_id BIGINT NOT NULL REFERENCES game(game_id) ON DELETE CASCADE,
     move_number INTEGER NOT NULL,
     player_id BIGINT NOT NULL REFERENCES "user"(user_id),
@@ -51,6 +54,14 @@ CREATE TABLE IF NOT EXISTS game_move (
     time_used INTEGER
 );
 
+-- 对局棋盘快照表：每局一行，按落子顺序每步一个字节
+CREATE TABLE IF NOT EXISTS game_snapshot (
+    game_id BIGINT PRIMARY KEY REFERENCES game(game_id) ON DELETE CASCADE,
+    move_count INTEGER NOT NULL,
+    moves BYTEA NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- 排行榜快照表
 CREATE TABLE IF NOT EXISTS ranking_snapshot (
     snapshot_id BIGSERIAL PRIMARY KEY,
@@ -103,4 +114,5 @@ CREATE TRIGGER update_user_updated_at BEFORE UPDATE ON "user"
 COMMENT ON TABLE "user" IS '用户表';
 COMMENT ON TABLE game IS '对局表';
 COMMENT ON TABLE game_move IS '棋谱表';
+COMMENT ON TABLE game_snapshot IS '对局棋盘快照表';
 COMMENT ON TABLE ranking_snapshot IS '排行榜快照表';